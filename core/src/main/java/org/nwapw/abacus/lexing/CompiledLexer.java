@@ -0,0 +1,208 @@
+package org.nwapw.abacus.lexing;
+
+import org.nwapw.abacus.lexing.pattern.Pattern;
+import org.nwapw.abacus.lexing.pattern.nodes.EndNode;
+import org.nwapw.abacus.lexing.pattern.nodes.PatternNode;
+
+import java.util.*;
+
+/**
+ * A deterministic automaton compiled from a collection of patterns.
+ * Subset construction is used to turn the pattern nodes into states,
+ * and input characters are grouped into classes that are treated identically
+ * by every pattern, so that matching only requires a table lookup per character.
+ *
+ * @param <T> the type used to identify which match belongs to which pattern.
+ */
+public class CompiledLexer<T> {
+
+    /**
+     * The state ID used to signify that no pattern can continue matching.
+     */
+    public static final int DEAD_STATE = -1;
+    /**
+     * The number of distinct char values.
+     */
+    private static final int CHAR_COUNT = Character.MAX_VALUE + 1;
+    /**
+     * The number of characters whose classes are stored in a lookup table.
+     */
+    private static final int ASCII_COUNT = 128;
+
+    /**
+     * The first characters of each character class, in increasing order.
+     */
+    private final int[] classStarts;
+    /**
+     * The character classes of the ASCII characters.
+     */
+    private final int[] asciiClasses;
+    /**
+     * The number of character classes.
+     */
+    private final int classCount;
+    /**
+     * The transition table, indexed by state * classCount + class.
+     */
+    private final int[] transitions;
+    /**
+     * The pattern ID accepted by each state, or null if the state is not accepting.
+     */
+    private final T[] acceptingTypes;
+
+    /**
+     * Compiles the given patterns into a new automaton.
+     *
+     * @param patterns the patterns to compile.
+     * @param compare  the comparator used to pick between patterns accepting the same input,
+     *                 or null if any of them may be picked.
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledLexer(Collection<Pattern<T>> patterns, Comparator<T> compare) {
+        Set<PatternNode<T>> startSet = new HashSet<>();
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        boundaries.add(CHAR_COUNT);
+        for (Pattern<T> pattern : patterns) {
+            pattern.getHead().addInto(startSet);
+        }
+        collectBoundaries(patterns, boundaries);
+
+        classStarts = new int[boundaries.size() - 1];
+        int classIndex = 0;
+        for (int boundary : boundaries.headSet(CHAR_COUNT)) {
+            classStarts[classIndex++] = boundary;
+        }
+        classCount = classStarts.length;
+        asciiClasses = new int[ASCII_COUNT];
+        for (char character = 0; character < ASCII_COUNT; character++) {
+            asciiClasses[character] = findClass(character);
+        }
+
+        Map<Set<PatternNode<T>>, Integer> stateIds = new HashMap<>();
+        List<Set<PatternNode<T>>> states = new ArrayList<>();
+        List<int[]> rows = new ArrayList<>();
+        stateIds.put(startSet, 0);
+        states.add(startSet);
+        for (int state = 0; state < states.size(); state++) {
+            Set<PatternNode<T>> currentSet = states.get(state);
+            int[] row = new int[classCount];
+            for (int characterClass = 0; characterClass < classCount; characterClass++) {
+                char representative = (char) classStarts[characterClass];
+                Set<PatternNode<T>> futureSet = new HashSet<>();
+                for (PatternNode<T> node : currentSet) {
+                    if (node.matches(representative)) node.addOutputsInto(futureSet);
+                }
+                if (futureSet.isEmpty()) {
+                    row[characterClass] = DEAD_STATE;
+                    continue;
+                }
+                Integer futureId = stateIds.get(futureSet);
+                if (futureId == null) {
+                    futureId = states.size();
+                    stateIds.put(futureSet, futureId);
+                    states.add(futureSet);
+                }
+                row[characterClass] = futureId;
+            }
+            rows.add(row);
+        }
+
+        transitions = new int[states.size() * classCount];
+        acceptingTypes = (T[]) new Object[states.size()];
+        for (int state = 0; state < states.size(); state++) {
+            System.arraycopy(rows.get(state), 0, transitions, state * classCount, classCount);
+            for (PatternNode<T> node : states.get(state)) {
+                if (!(node instanceof EndNode)) continue;
+                T patternId = ((EndNode<T>) node).getPatternId();
+                T currentId = acceptingTypes[state];
+                if (currentId == null || (compare != null && compare.compare(patternId, currentId) > 0)) {
+                    acceptingTypes[state] = patternId;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the character class boundaries of every node in the given patterns.
+     *
+     * @param patterns   the patterns whose nodes to visit.
+     * @param boundaries the set of boundaries to add into.
+     */
+    private static <T> void collectBoundaries(Collection<Pattern<T>> patterns, Set<Integer> boundaries) {
+        Set<PatternNode<T>> visited = new HashSet<>();
+        Deque<PatternNode<T>> toVisit = new ArrayDeque<>();
+        for (Pattern<T> pattern : patterns) {
+            toVisit.push(pattern.getHead());
+        }
+        while (!toVisit.isEmpty()) {
+            PatternNode<T> current = toVisit.pop();
+            if (!visited.add(current)) continue;
+            current.addBoundariesInto(boundaries);
+            for (PatternNode<T> output : current.getOutputStates()) {
+                toVisit.push(output);
+            }
+        }
+    }
+
+    /**
+     * Finds the character class of the given character by searching the class boundaries.
+     *
+     * @param character the character to find the class of.
+     * @return the class of the character.
+     */
+    private int findClass(char character) {
+        int index = Arrays.binarySearch(classStarts, character);
+        return (index >= 0) ? index : -index - 2;
+    }
+
+    /**
+     * Gets the character class of the given character.
+     *
+     * @param character the character to classify.
+     * @return the class of the character.
+     */
+    private int classOf(char character) {
+        return (character < ASCII_COUNT) ? asciiClasses[character] : findClass(character);
+    }
+
+    /**
+     * Gets the state from which all matching starts.
+     *
+     * @return the start state.
+     */
+    public int getStartState() {
+        return 0;
+    }
+
+    /**
+     * Gets the state the automaton goes into after reading a character.
+     *
+     * @param state     the current state.
+     * @param character the character read.
+     * @return the next state, or {@link #DEAD_STATE} if no pattern can continue.
+     */
+    public int next(int state, char character) {
+        return transitions[state * classCount + classOf(character)];
+    }
+
+    /**
+     * Gets the pattern ID accepted in the given state.
+     *
+     * @param state the state to check.
+     * @return the pattern ID, or null if the state is not accepting.
+     */
+    public T getAcceptingType(int state) {
+        return acceptingTypes[state];
+    }
+
+    /**
+     * Gets the number of states in this automaton.
+     *
+     * @return the number of states.
+     */
+    public int getStateCount() {
+        return acceptingTypes.length;
+    }
+
+}
@@ -0,0 +1,269 @@
+package org.nwapw.abacus.lexing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A character trie that matches literal keywords, such as operator and function names.
+ * Unlike patterns, the cost of matching a keyword only depends on the length of the
+ * match, and not on the number of registered keywords.
+ *
+ * @param <T> the type used to identify which keyword has been matched.
+ */
+public class KeywordTrie<T> {
+
+    /**
+     * The root node of the trie, which corresponds to the empty string.
+     */
+    private Node<T> root;
+
+    /**
+     * Creates a new trie with no registered keywords.
+     */
+    public KeywordTrie() {
+        root = new Node<>(0);
+    }
+
+    /**
+     * Creates a deep copy of this trie, which is not affected by changes to this trie.
+     *
+     * @return the copy.
+     */
+    public KeywordTrie<T> copy() {
+        KeywordTrie<T> copy = new KeywordTrie<>();
+        copy.root = root.copy();
+        return copy;
+    }
+
+    /**
+     * Registers a single keyword.
+     *
+     * @param keyword the keyword to register.
+     * @param id      the ID by which to identify the keyword.
+     */
+    public void register(String keyword, T id) {
+        if (keyword.isEmpty()) return;
+        Node<T> current = root;
+        for (int i = 0; i < keyword.length(); i++) {
+            current = current.getOrCreateChild(keyword.charAt(i));
+        }
+        current.keyword = keyword;
+        if (!current.ids.contains(id)) current.ids.add(id);
+    }
+
+    /**
+     * Unregisters a keyword.
+     *
+     * @param keyword the keyword to unregister.
+     * @param id      the ID by which to identify the keyword.
+     */
+    public void unregister(String keyword, T id) {
+        if (keyword.isEmpty()) return;
+        unregister(root, keyword, id);
+    }
+
+    /**
+     * Unregisters a keyword below the given node, removing nodes that
+     * no longer lead to any keyword.
+     *
+     * @param node    the node to start at.
+     * @param keyword the keyword to unregister.
+     * @param id      the ID by which to identify the keyword.
+     */
+    private void unregister(Node<T> node, String keyword, T id) {
+        if (node.depth == keyword.length()) {
+            node.ids.remove(id);
+            return;
+        }
+        char key = keyword.charAt(node.depth);
+        Node<T> child = node.getChild(key);
+        if (child == null) return;
+        unregister(child, keyword, id);
+        if (child.ids.isEmpty() && child.keys.length == 0) node.removeChild(key);
+    }
+
+    /**
+     * Gets the root node of the trie, from which matching starts.
+     *
+     * @return the root node.
+     */
+    public Node<T> getRoot() {
+        return root;
+    }
+
+    /**
+     * Finds the longest keyword starting at the given index.
+     *
+     * @param from    the string to read from.
+     * @param startAt the index to start at.
+     * @return the node at which the longest keyword ends, or null if no keyword matched.
+     */
+    public Node<T> longestMatch(CharSequence from, int startAt) {
+        Node<T> current = root;
+        Node<T> bestMatch = null;
+        int length = from.length();
+        for (int index = startAt; index < length; index++) {
+            current = current.getChild(from.charAt(index));
+            if (current == null) break;
+            if (current.isKeyword()) bestMatch = current;
+        }
+        return bestMatch;
+    }
+
+    /**
+     * A single node of the trie. The children are stored in arrays sorted by
+     * their character, to keep the trie compact.
+     *
+     * @param <T> the type used to identify which keyword has been matched.
+     */
+    public static class Node<T> {
+
+        /**
+         * The length of the keyword prefix this node represents.
+         */
+        private final int depth;
+        /**
+         * The keyword ending at this node, or null if no keyword was registered for it.
+         */
+        private String keyword;
+        /**
+         * The characters that lead to the children, in increasing order.
+         */
+        private char[] keys;
+        /**
+         * The children of this node, in the same order as the keys.
+         */
+        private Node<T>[] children;
+        /**
+         * The IDs of the keywords that end at this node.
+         */
+        private final List<T> ids;
+
+        /**
+         * Creates a new node with no children.
+         *
+         * @param depth the length of the prefix this node represents.
+         */
+        @SuppressWarnings("unchecked")
+        private Node(int depth) {
+            this.depth = depth;
+            keys = new char[0];
+            children = new Node[0];
+            ids = new ArrayList<>(1);
+        }
+
+        /**
+         * Creates a deep copy of this node and its children.
+         *
+         * @return the copy.
+         */
+        private Node<T> copy() {
+            Node<T> copy = new Node<>(depth);
+            copy.keyword = keyword;
+            copy.keys = keys.clone();
+            copy.children = Arrays.copyOf(children, children.length);
+            for (int i = 0; i < children.length; i++) {
+                copy.children[i] = children[i].copy();
+            }
+            copy.ids.addAll(ids);
+            return copy;
+        }
+
+        /**
+         * Gets the child reached by the given character.
+         *
+         * @param key the character to follow.
+         * @return the child, or null if there is none.
+         */
+        public Node<T> getChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return (index >= 0) ? children[index] : null;
+        }
+
+        /**
+         * Gets the child reached by the given character, creating it if necessary.
+         *
+         * @param key the character to follow.
+         * @return the child.
+         */
+        private Node<T> getOrCreateChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) return children[index];
+            index = -index - 1;
+            Node<T> child = new Node<>(depth + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node<T>[] newChildren = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            newKeys[index] = key;
+            newChildren[index] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        /**
+         * Removes the child reached by the given character.
+         *
+         * @param key the character leading to the child.
+         */
+        private void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) return;
+            char[] newKeys = new char[keys.length - 1];
+            Node<T>[] newChildren = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        /**
+         * Gets the length of the keyword that ends at this node.
+         *
+         * @return the length of the keyword.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Checks whether any keyword ends at this node.
+         *
+         * @return whether this node completes a keyword.
+         */
+        public boolean isKeyword() {
+            return !ids.isEmpty();
+        }
+
+        /**
+         * Gets the keyword that ends at this node.
+         *
+         * @return the keyword.
+         */
+        public String getKeyword() {
+            return keyword;
+        }
+
+        /**
+         * Gets the best ID of the keywords ending at this node.
+         *
+         * @param compare the comparator used to sort keywords by their IDs, or null.
+         * @return the highest ID according to the comparator.
+         */
+        public T getBestId(Comparator<T> compare) {
+            T best = ids.get(0);
+            for (int i = 1; i < ids.size(); i++) {
+                T id = ids.get(i);
+                if (compare != null && compare.compare(id, best) > 0) best = id;
+            }
+            return best;
+        }
+
+    }
+
+}
@@ -1,14 +1,15 @@
 package org.nwapw.abacus.lexing;
 
 import org.nwapw.abacus.lexing.pattern.Pattern;
-import org.nwapw.abacus.lexing.pattern.nodes.EndNode;
-import org.nwapw.abacus.lexing.pattern.nodes.PatternNode;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * A lexer that can generate tokens of a given type given a list of regular expressions
- * to operate on.
+ * to operate on. Registering and unregistering is synchronized, and lexing is done
+ * through an immutable {@link LexerSnapshot} that is published whenever the registered
+ * patterns change, so one lexer can be used from many threads at once.
  *
  * @param <T> the type used to identify which match belongs to which pattern.
  */
@@ -18,12 +19,68 @@ public class Lexer<T> {
      * The registered patterns.
      */
     private Map<PatternEntry<T>, Pattern<T>> patterns;
+    /**
+     * The registered literal keywords, matched alongside the patterns.
+     */
+    private KeywordTrie<T> keywords;
+    /**
+     * Whether the keywords are shared with a snapshot, in which case they must
+     * be copied before they are changed.
+     */
+    private boolean keywordsShared;
+    /**
+     * Whether the patterns should be compiled into a deterministic automaton for matching.
+     */
+    private boolean compiledMode;
+    /**
+     * The automaton compiled from the registered patterns, or null if it needs to be compiled again.
+     * Changing only the keywords keeps the automaton.
+     */
+    private CompiledLexer<T> automaton;
+    /**
+     * The comparator the automaton was compiled with.
+     */
+    private Comparator<T> automatonComparator;
+    /**
+     * The snapshot of the registered patterns and keywords, or null if
+     * it needs to be taken again.
+     */
+    private volatile LexerSnapshot<T> snapshot;
+    /**
+     * The number of times the registered patterns and keywords have changed,
+     * used to tell whether previously read tokens can be reused.
+     */
+    private int version;
 
     /**
      * Creates a new lexer with no registered patterns.
      */
     public Lexer() {
         patterns = new HashMap<>();
+        keywords = new KeywordTrie<>();
+        compiledMode = false;
+    }
+
+    /**
+     * Sets whether the lexer compiles its patterns into a single deterministic automaton,
+     * instead of simulating every pattern separately for every token. The automaton is
+     * rebuilt lazily whenever the registered patterns change.
+     *
+     * @param compiledMode whether to use the compiled automaton.
+     */
+    public synchronized void setCompiledMode(boolean compiledMode) {
+        this.compiledMode = compiledMode;
+        automaton = null;
+        snapshot = null;
+    }
+
+    /**
+     * Checks whether the lexer uses a compiled automaton to match tokens.
+     *
+     * @return whether compiled mode is enabled.
+     */
+    public synchronized boolean isCompiledMode() {
+        return compiledMode;
     }
 
     /**
@@ -32,9 +89,14 @@ public class Lexer<T> {
      * @param pattern the pattern regex
      * @param id      the ID by which to identify the pattern.
      */
-    public void register(String pattern, T id) {
+    public synchronized void register(String pattern, T id) {
         Pattern<T> compiledPattern = new Pattern<>(pattern, id);
-        if (compiledPattern.getHead() != null) patterns.put(new PatternEntry<>(pattern, id), compiledPattern);
+        if (compiledPattern.getHead() != null) {
+            patterns.put(new PatternEntry<>(pattern, id), compiledPattern);
+            automaton = null;
+            snapshot = null;
+            version++;
+        }
     }
 
     /**
@@ -43,8 +105,97 @@ public class Lexer<T> {
      * @param pattern the pattern to unregister
      * @param id      the ID by which to identify the pattern.
      */
-    public void unregister(String pattern, T id) {
-        patterns.remove(new PatternEntry<>(pattern, id));
+    public synchronized void unregister(String pattern, T id) {
+        if (patterns.remove(new PatternEntry<>(pattern, id)) != null) {
+            automaton = null;
+            snapshot = null;
+            version++;
+        }
+    }
+
+    /**
+     * Registers a literal keyword. Keywords are not compiled into patterns,
+     * and are instead matched using a trie, so that registering many of them
+     * does not slow down matching.
+     *
+     * @param keyword the keyword, which is matched exactly.
+     * @param id      the ID by which to identify the keyword.
+     */
+    public synchronized void registerKeyword(String keyword, T id) {
+        ownKeywords().register(keyword, id);
+        snapshot = null;
+        version++;
+    }
+
+    /**
+     * Unregisters a literal keyword.
+     *
+     * @param keyword the keyword to unregister.
+     * @param id      the ID by which to identify the keyword.
+     */
+    public synchronized void unregisterKeyword(String keyword, T id) {
+        ownKeywords().unregister(keyword, id);
+        snapshot = null;
+        version++;
+    }
+
+    /**
+     * Registers and unregisters several keywords at once. The changes are made to a copy
+     * of the keywords, which only replaces them once all the changes are done, so lexing
+     * while the keywords are changed sees either all of the changes or none of them,
+     * and the snapshot is only taken again once.
+     *
+     * @param changes the changes to make to the keywords.
+     */
+    public synchronized void updateKeywords(Consumer<KeywordTrie<T>> changes) {
+        KeywordTrie<T> updated = keywords.copy();
+        changes.accept(updated);
+        keywords = updated;
+        keywordsShared = false;
+        snapshot = null;
+        version++;
+    }
+
+    /**
+     * Gets the keywords so that they can be changed, copying them first
+     * if they are shared with a snapshot.
+     *
+     * @return the keywords, which are not shared with any snapshot.
+     */
+    private KeywordTrie<T> ownKeywords() {
+        if (keywordsShared) {
+            keywords = keywords.copy();
+            keywordsShared = false;
+        }
+        return keywords;
+    }
+
+    /**
+     * Gets an immutable snapshot of the currently registered patterns and keywords,
+     * which can be used from any number of threads. The snapshot is taken again
+     * only after the patterns, the keywords or the comparator change, and the
+     * patterns are only compiled again after the patterns or the comparator change.
+     *
+     * @param compare the comparator used to sort matches by their IDs.
+     * @return the snapshot.
+     */
+    public LexerSnapshot<T> getSnapshot(Comparator<T> compare) {
+        LexerSnapshot<T> current = snapshot;
+        if (current != null && Objects.equals(current.getComparator(), compare)) return current;
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || !Objects.equals(current.getComparator(), compare)) {
+                if (compiledMode && (automaton == null || !Objects.equals(automatonComparator, compare))) {
+                    automaton = new CompiledLexer<>(patterns.values(), compare);
+                    automatonComparator = compare;
+                }
+                current = new LexerSnapshot<>(patterns.values(), keywords,
+                        compiledMode ? automaton : null, compare, version);
+                keywordsShared = true;
+                snapshot = current;
+            }
+            return current;
+        }
     }
 
     /**
@@ -55,35 +206,8 @@ public class Lexer<T> {
      * @param compare the comparator used to sort tokens by their ID.
      * @return the best match.
      */
-    public Match<T> lexOne(String from, int startAt, Comparator<T> compare) {
-        ArrayList<Match<T>> matches = new ArrayList<>();
-        HashSet<PatternNode<T>> currentSet = new HashSet<>();
-        HashSet<PatternNode<T>> futureSet = new HashSet<>();
-        int index = startAt;
-        for (Pattern<T> pattern : patterns.values()) {
-            pattern.getHead().addInto(currentSet);
-        }
-        while (!currentSet.isEmpty()) {
-            for (PatternNode<T> node : currentSet) {
-                if (index < from.length() && node.matches(from.charAt(index))) {
-                    node.addOutputsInto(futureSet);
-                } else if (node instanceof EndNode) {
-                    matches.add(new Match<>(from.substring(startAt, index), ((EndNode<T>) node).getPatternId()));
-                }
-            }
-
-            HashSet<PatternNode<T>> tmp = currentSet;
-            currentSet = futureSet;
-            futureSet = tmp;
-            futureSet.clear();
-
-            index++;
-        }
-        if (compare != null) {
-            Collections.sort(matches, (a, b) -> compare.compare(a.getType(), b.getType()));
-        }
-        Collections.sort(matches, (o1, o2) -> o1.getContent().length() - o2.getContent().length());
-        return matches.isEmpty() ? null : matches.get(matches.size() - 1);
+    public Match<T> lexOne(CharSequence from, int startAt, Comparator<T> compare) {
+        return getSnapshot(compare).lexOne(from, startAt);
     }
 
     /**
@@ -94,18 +218,56 @@ public class Lexer<T> {
      * @param compare the comparator used to sort matches by their IDs.
      * @return the resulting list of matches, in order, or null on error.
      */
-    public List<Match<T>> lexAll(String from, int startAt, Comparator<T> compare) {
-        int index = startAt;
-        ArrayList<Match<T>> matches = new ArrayList<>();
-        Match<T> lastMatch = null;
-        while (index < from.length() && (lastMatch = lexOne(from, index, compare)) != null) {
-            int length = lastMatch.getContent().length();
-            if (length == 0) return null;
-            matches.add(lastMatch);
-            index += length;
-        }
-        if (lastMatch == null) return null;
-        return matches;
+    public List<Match<T>> lexAll(CharSequence from, int startAt, Comparator<T> compare) {
+        return lexAll(from, startAt, compare, Collections.emptySet());
+    }
+
+    /**
+     * Reads all tokens from a string into a buffer of token offsets, leaving out
+     * tokens of the given types. The content of the tokens is not copied
+     * out of the string.
+     *
+     * @param from    the string to start from.
+     * @param startAt the index to start at.
+     * @param compare the comparator used to sort matches by their IDs.
+     * @param discard the types of the tokens that should not be added to the buffer.
+     * @return the resulting buffer of tokens, in order, or null on error.
+     */
+    public TokenBuffer<T> lexAll(CharSequence from, int startAt, Comparator<T> compare, Set<T> discard) {
+        return getSnapshot(compare).lexAll(from, startAt, discard);
+    }
+
+    /**
+     * Reads tokens from a stream of characters, such as a {@link java.io.Reader} or a
+     * {@link java.nio.CharBuffer}, one at a time. The patterns and keywords registered when
+     * this method is called are used.
+     *
+     * @param from    the stream to read from.
+     * @param compare the comparator used to sort matches by their IDs.
+     * @param discard the types of the tokens that should not be produced.
+     * @return the lexer that produces the tokens of the stream.
+     * @see LexerSnapshot#lexStream(Readable, Set)
+     */
+    public StreamLexer<T> lexStream(Readable from, Comparator<T> compare, Set<T> discard) {
+        return getSnapshot(compare).lexStream(from, discard);
+    }
+
+    /**
+     * Reads all tokens from a string that was produced by editing the source of a previous
+     * buffer, only reading the tokens affected by the edit again.
+     *
+     * @param previous the buffer produced from the string before the edit.
+     * @param from     the string after the edit.
+     * @param offset   the index at which the edit occurred.
+     * @param inserted the number of characters inserted by the edit.
+     * @param compare  the comparator used to sort matches by their IDs.
+     * @param discard  the types of the tokens that should not be added to the buffer.
+     * @return the resulting buffer of tokens, in order, or null on error.
+     * @see LexerSnapshot#relexAll(TokenBuffer, CharSequence, int, int, Set)
+     */
+    public TokenBuffer<T> relexAll(TokenBuffer<T> previous, CharSequence from, int offset, int inserted,
+                                   Comparator<T> compare, Set<T> discard) {
+        return getSnapshot(compare).relexAll(previous, from, offset, inserted, discard);
     }
 
     /**
@@ -0,0 +1,364 @@
+package org.nwapw.abacus.lexing;
+
+import org.nwapw.abacus.lexing.pattern.Pattern;
+import org.nwapw.abacus.lexing.pattern.nodes.EndNode;
+import org.nwapw.abacus.lexing.pattern.nodes.PatternNode;
+
+import java.util.*;
+
+/**
+ * An immutable view of the patterns and keywords registered with a {@link Lexer},
+ * together with the automaton compiled from them. Snapshots are never modified
+ * after they are created, and the scratch space needed for lexing is kept
+ * per thread, so any number of threads can lex using the same snapshot at once.
+ *
+ * @param <T> the type used to identify which match belongs to which pattern.
+ */
+public final class LexerSnapshot<T> {
+
+    /**
+     * The patterns registered when the snapshot was taken.
+     */
+    private final List<Pattern<T>> patterns;
+    /**
+     * The keywords registered when the snapshot was taken, which the lexer
+     * copies before changing them again.
+     */
+    private final KeywordTrie<T> keywords;
+    /**
+     * The automaton compiled from the patterns, or null if the patterns are simulated instead.
+     */
+    private final CompiledLexer<T> automaton;
+    /**
+     * The comparator used to sort matches by their IDs.
+     */
+    private final Comparator<T> compare;
+    /**
+     * The version of the lexer's patterns and keywords this snapshot was taken from.
+     */
+    private final int version;
+    /**
+     * The scratch space used to read tokens, kept per thread so that reading a token
+     * doesn't create any objects once a thread has read one before.
+     */
+    private final ThreadLocal<Scan<T>> scans = ThreadLocal.withInitial(Scan::new);
+
+    /**
+     * Creates a new snapshot of the given patterns and keywords.
+     *
+     * @param patterns  the patterns to match.
+     * @param keywords  the keywords to match, which must not be changed afterwards.
+     * @param automaton the automaton compiled from the patterns, or null to simulate the patterns instead.
+     * @param compare   the comparator used to sort matches by their IDs.
+     * @param version   the version of the lexer's patterns and keywords.
+     */
+    LexerSnapshot(Collection<Pattern<T>> patterns, KeywordTrie<T> keywords, CompiledLexer<T> automaton,
+                  Comparator<T> compare, int version) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        this.keywords = keywords;
+        this.automaton = automaton;
+        this.compare = compare;
+        this.version = version;
+    }
+
+    /**
+     * Gets the comparator this snapshot sorts matches with.
+     *
+     * @return the comparator.
+     */
+    public Comparator<T> getComparator() {
+        return compare;
+    }
+
+    /**
+     * Gets the version of the lexer's patterns and keywords this snapshot was taken from.
+     *
+     * @return the version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Reads one token from the given string.
+     *
+     * @param from    the string to read from
+     * @param startAt the index to start at
+     * @return the best match.
+     */
+    public Match<T> lexOne(CharSequence from, int startAt) {
+        Scan<T> scan = scans.get();
+        if (!scan(from, startAt, scan)) return null;
+        return new Match<>(from, startAt, scan.end, scan.content, scan.type);
+    }
+
+    /**
+     * Reads one token from the given string, storing the result into the given scan.
+     *
+     * @param from    the string to read from
+     * @param startAt the index to start at
+     * @param into    the scan to store the result into.
+     * @return whether any token was found.
+     */
+    private boolean scan(CharSequence from, int startAt, Scan<T> into) {
+        if (automaton != null) {
+            scanCompiled(from, startAt, into);
+        } else {
+            scanInterpreted(from, startAt, into);
+        }
+        return scanKeyword(from, startAt, into);
+    }
+
+    /**
+     * Finds the best pattern match by simulating every pattern, storing the result into the given scan.
+     * The best match is tracked while simulating, so that the longest match wins, and matches of the
+     * same length are decided by the comparator.
+     *
+     * @param from    the string to read from
+     * @param startAt the index to start at
+     * @param into    the scan to store the result into.
+     */
+    private void scanInterpreted(CharSequence from, int startAt, Scan<T> into) {
+        if (into.currentSet == null) {
+            into.currentSet = new HashSet<>();
+            into.futureSet = new HashSet<>();
+        }
+        HashSet<PatternNode<T>> currentSet = into.currentSet;
+        HashSet<PatternNode<T>> futureSet = into.futureSet;
+        currentSet.clear();
+        futureSet.clear();
+        int end = -1;
+        T type = null;
+        int index = startAt;
+        for (Pattern<T> pattern : patterns) {
+            pattern.getHead().addInto(currentSet);
+        }
+        while (!currentSet.isEmpty()) {
+            for (PatternNode<T> node : currentSet) {
+                if (index < from.length() && node.matches(from.charAt(index))) {
+                    node.addOutputsInto(futureSet);
+                } else if (node instanceof EndNode) {
+                    T patternId = ((EndNode<T>) node).getPatternId();
+                    if (end != index || compare == null || compare.compare(patternId, type) >= 0) {
+                        end = index;
+                        type = patternId;
+                    }
+                }
+            }
+
+            HashSet<PatternNode<T>> tmp = currentSet;
+            currentSet = futureSet;
+            futureSet = tmp;
+            futureSet.clear();
+
+            index++;
+        }
+        into.end = end;
+        into.type = type;
+        into.content = null;
+        into.reach = Math.max(index, startAt + 1);
+    }
+
+    /**
+     * Finds the longest pattern match using the compiled automaton, storing the result into the given scan.
+     *
+     * @param from    the string to read from
+     * @param startAt the index to start at
+     * @param into    the scan to store the result into.
+     */
+    private void scanCompiled(CharSequence from, int startAt, Scan<T> into) {
+        int state = automaton.getStartState();
+        int end = (automaton.getAcceptingType(state) != null) ? startAt : -1;
+        int bestState = state;
+        int length = from.length();
+        int index = startAt;
+        while (index < length) {
+            state = automaton.next(state, from.charAt(index++));
+            if (state == CompiledLexer.DEAD_STATE) break;
+            if (automaton.getAcceptingType(state) != null) {
+                end = index;
+                bestState = state;
+            }
+        }
+        into.end = end;
+        into.type = (end != -1) ? automaton.getAcceptingType(bestState) : null;
+        into.content = null;
+        into.reach = (state == CompiledLexer.DEAD_STATE) ? index : length + 1;
+    }
+
+    /**
+     * Finds the longest keyword match, replacing the pattern match in the given scan
+     * if the keyword is longer, or of the same length and preferred by the comparator.
+     *
+     * @param from    the string to read from
+     * @param startAt the index to start at
+     * @param into    the scan holding the pattern match.
+     * @return whether any token was found.
+     */
+    private boolean scanKeyword(CharSequence from, int startAt, Scan<T> into) {
+        KeywordTrie.Node<T> current = keywords.getRoot();
+        KeywordTrie.Node<T> keyword = null;
+        int length = from.length();
+        int index = startAt;
+        while (index < length) {
+            current = current.getChild(from.charAt(index++));
+            if (current == null) break;
+            if (current.isKeyword()) keyword = current;
+        }
+        into.reach = Math.max(into.reach, (current == null) ? index : length + 1);
+        if (keyword != null) {
+            int keywordEnd = startAt + keyword.getDepth();
+            T keywordType = keyword.getBestId(compare);
+            if (keywordEnd > into.end ||
+                    (keywordEnd == into.end && compare != null && compare.compare(keywordType, into.type) > 0)) {
+                into.end = keywordEnd;
+                into.type = keywordType;
+                into.content = keyword.getKeyword();
+            }
+        }
+        return into.end != -1;
+    }
+
+    /**
+     * Reads all tokens from a string into a buffer of token offsets, leaving out
+     * tokens of the given types. The content of the tokens is not copied
+     * out of the string.
+     *
+     * @param from    the string to start from.
+     * @param startAt the index to start at.
+     * @param discard the types of the tokens that should not be added to the buffer.
+     * @return the resulting buffer of tokens, in order, or null on error.
+     */
+    public TokenBuffer<T> lexAll(CharSequence from, int startAt, Set<T> discard) {
+        if (startAt >= from.length()) return null;
+        TokenBuffer<T> tokens = new TokenBuffer<>(from, startAt);
+        tokens.lexerVersion = version;
+        return lexInto(tokens, null, 0, 0, startAt, discard) ? tokens : null;
+    }
+
+    /**
+     * Reads tokens from a stream of characters, such as a {@link java.io.Reader} or a
+     * {@link java.nio.CharBuffer}, one at a time. The patterns are always matched using
+     * a compiled automaton. Unlike the other methods, failing to read a token throws
+     * a {@link org.nwapw.abacus.exception.TokenizeException} with the position of the failure.
+     *
+     * @param from    the stream to read from.
+     * @param discard the types of the tokens that should not be produced.
+     * @return the lexer that produces the tokens of the stream.
+     */
+    public StreamLexer<T> lexStream(Readable from, Set<T> discard) {
+        CompiledLexer<T> streamAutomaton = (automaton != null) ? automaton : new CompiledLexer<>(patterns, compare);
+        return new StreamLexer<>(from, streamAutomaton, keywords, compare, discard);
+    }
+
+    /**
+     * Reads all tokens from a string that was produced by editing the source of a previous
+     * buffer, only reading the tokens affected by the edit again. Lexing restarts at the
+     * first token whose match could have been changed by the edit, and stops as soon as
+     * a token starts where one of the old tokens used to start, after which the old tokens
+     * are reused. The previous buffer must have been produced using the same comparator
+     * and discarded types; if the lexer's patterns or keywords have changed since, the whole
+     * string is read again.
+     * <p>
+     * Only the tokens around the edit are read again, but the tokens before and after them are
+     * still copied into the new buffer, and moved by the change in length, so the whole call
+     * takes time linear in the number of tokens, with a small constant.
+     *
+     * @param previous the buffer produced from the string before the edit.
+     * @param from     the string after the edit.
+     * @param offset   the index at which the edit occurred.
+     * @param inserted the number of characters inserted by the edit.
+     * @param discard  the types of the tokens that should not be added to the buffer.
+     * @return the resulting buffer of tokens, in order, or null on error.
+     */
+    public TokenBuffer<T> relexAll(TokenBuffer<T> previous, CharSequence from, int offset, int inserted,
+                                   Set<T> discard) {
+        int startAt = previous.getStartAt();
+        if (previous.lexerVersion != version || offset < startAt) return lexAll(from, startAt, discard);
+        if (startAt >= from.length()) return null;
+        int restartToken = 0;
+        if (previous.getLeadingReach() <= offset) {
+            while (restartToken < previous.size() && previous.getReach(restartToken) <= offset) restartToken++;
+            if (restartToken == previous.size()) restartToken = 0;
+        }
+        TokenBuffer<T> tokens = new TokenBuffer<>(from, startAt);
+        tokens.lexerVersion = version;
+        if (restartToken > 0) tokens.extendReach(previous.getLeadingReach());
+        tokens.addTokens(previous, 0, restartToken, 0);
+        int restartAt = (restartToken == 0) ? startAt : previous.getStart(restartToken);
+        return lexInto(tokens, previous, restartToken, offset + inserted, restartAt, discard) ? tokens : null;
+    }
+
+    /**
+     * Reads tokens into the given buffer until the end of its source is reached,
+     * or until the tokens line up with the tokens of a previous buffer again.
+     *
+     * @param tokens    the buffer to read tokens into.
+     * @param previous  the buffer produced before an edit, or null if there is none.
+     * @param fromToken the first token of the previous buffer that may line up with the new tokens.
+     * @param editEnd   the index in the new source at which the edited text ends.
+     * @param startAt   the index to start reading at.
+     * @param discard   the types of the tokens that should not be added to the buffer.
+     * @return whether reading succeeded.
+     */
+    private boolean lexInto(TokenBuffer<T> tokens, TokenBuffer<T> previous, int fromToken, int editEnd,
+                            int startAt, Set<T> discard) {
+        CharSequence from = tokens.getSource();
+        Scan<T> scan = scans.get();
+        int shift = (previous != null) ? from.length() - previous.getSource().length() : 0;
+        int index = startAt;
+        while (index < from.length()) {
+            if (previous != null && index >= editEnd) {
+                int oldIndex = index - shift;
+                while (fromToken < previous.size() && previous.getStart(fromToken) < oldIndex) fromToken++;
+                if (fromToken < previous.size() && previous.getStart(fromToken) == oldIndex) {
+                    tokens.addTokens(previous, fromToken, previous.size(), shift);
+                    return true;
+                }
+            }
+            if (!scan(from, index, scan) || scan.end == index) return false;
+            if (!discard.contains(scan.type)) {
+                tokens.addToken(index, scan.end, scan.reach, scan.type, scan.content);
+            } else {
+                tokens.extendReach(scan.reach);
+            }
+            index = scan.end;
+        }
+        return true;
+    }
+
+    /**
+     * The result of reading a single token, along with the scratch space
+     * needed to read it, reused between tokens and calls to avoid creating objects while lexing.
+     *
+     * @param <T> the type used to identify the token.
+     */
+    private static class Scan<T> {
+        /**
+         * The index at which the token ends.
+         */
+        int end;
+        /**
+         * The type of the token.
+         */
+        T type;
+        /**
+         * The content of the token, if it is already known.
+         */
+        String content;
+        /**
+         * The index of the last character examined while reading the token, plus one.
+         * Reaching the end of the string counts as examining one more character.
+         */
+        int reach;
+        /**
+         * The pattern nodes being simulated, created on first use and reused after.
+         */
+        HashSet<PatternNode<T>> currentSet;
+        /**
+         * The pattern nodes to simulate after the current character, created on first use and reused after.
+         */
+        HashSet<PatternNode<T>> futureSet;
+    }
+
+}
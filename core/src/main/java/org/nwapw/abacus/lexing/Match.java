@@ -1,16 +1,30 @@
 package org.nwapw.abacus.lexing;
 
 /**
- * A match that has been generated by the lexer.
+ * A match that has been generated by the lexer. Matches produced from a string
+ * only store the location of the match, and their content is only copied out
+ * of the original string when it is first requested.
  *
  * @param <T> the type used to represent the ID of the pattern this match belongs to.
  */
 public class Match<T> {
 
     /**
-     * The content of this match.
+     * The content of this match, or null if it hasn't been copied out of the source yet.
      */
     private String content;
+    /**
+     * The sequence this match was found in.
+     */
+    private CharSequence source;
+    /**
+     * The index in the source at which this match starts.
+     */
+    private int start;
+    /**
+     * The index in the source at which this match ends, exclusive.
+     */
+    private int end;
     /**
      * The pattern type this match matched.
      */
@@ -23,6 +37,35 @@ public class Match<T> {
      * @param type    the type of the match.
      */
     public Match(String content, T type) {
+        this(content, 0, content.length(), content, type);
+    }
+
+    /**
+     * Creates a new match that refers to a region of the given source.
+     *
+     * @param source the sequence this match was found in.
+     * @param start  the index at which the match starts.
+     * @param end    the index at which the match ends, exclusive.
+     * @param type   the type of the match.
+     */
+    public Match(CharSequence source, int start, int end, T type) {
+        this(source, start, end, null, type);
+    }
+
+    /**
+     * Creates a new match that refers to a region of the given source, and whose
+     * content is already known.
+     *
+     * @param source  the sequence this match was found in.
+     * @param start   the index at which the match starts.
+     * @param end     the index at which the match ends, exclusive.
+     * @param content the content of the match, or null if it should be read from the source.
+     * @param type    the type of the match.
+     */
+    public Match(CharSequence source, int start, int end, String content, T type) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
         this.content = content;
         this.type = type;
     }
@@ -33,9 +76,37 @@ public class Match<T> {
      * @return the content.
      */
     public String getContent() {
+        if (content == null) content = source.subSequence(start, end).toString();
         return content;
     }
 
+    /**
+     * Gets the index in the source at which this match starts.
+     *
+     * @return the start index.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the index in the source at which this match ends.
+     *
+     * @return the end index, exclusive.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the length of this match.
+     *
+     * @return the number of characters matched.
+     */
+    public int getLength() {
+        return end - start;
+    }
+
     /**
      * Gets the pattern type of the node.
      *
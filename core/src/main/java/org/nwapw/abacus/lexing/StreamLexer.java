@@ -0,0 +1,182 @@
+package org.nwapw.abacus.lexing;
+
+import org.nwapw.abacus.exception.TokenizeException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A lexer that reads tokens from a stream of characters, such as a {@link java.io.Reader}
+ * or a {@link CharBuffer}, instead of a string. Only the characters from the start of the
+ * current token up to the furthest character the lexer needs to look at are kept in memory,
+ * so the memory used depends on the length of the longest token rather than on the length of the input.
+ * Tokens are produced one at a time, either through the iterator or through {@link #forEachRemaining}.
+ * Since matches store their positions as ints, a token that ends past {@link Integer#MAX_VALUE}
+ * characters into the stream can't be produced, and lexing it throws a {@link TokenizeException}.
+ *
+ * @param <T> the type used to identify which match belongs to which pattern.
+ */
+public class StreamLexer<T> implements Iterator<Match<T>> {
+
+    /**
+     * The initial size of the character window.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The stream characters are read from.
+     */
+    private final Readable from;
+    /**
+     * The automaton compiled from the lexer's patterns.
+     */
+    private final CompiledLexer<T> automaton;
+    /**
+     * The lexer's keywords.
+     */
+    private final KeywordTrie<T> keywords;
+    /**
+     * The comparator used to sort matches by their IDs.
+     */
+    private final Comparator<T> compare;
+    /**
+     * The types of the tokens that are not produced.
+     */
+    private final Set<T> discard;
+    /**
+     * The characters read from the stream that may still be part of a token.
+     */
+    private CharBuffer window;
+    /**
+     * The index in the stream of the first character in the window.
+     */
+    private long windowStart;
+    /**
+     * Whether the end of the stream has been reached.
+     */
+    private boolean endReached;
+    /**
+     * The next token, if it has already been read.
+     */
+    private Match<T> nextMatch;
+
+    /**
+     * Creates a new stream lexer.
+     *
+     * @param from      the stream to read from.
+     * @param automaton the automaton compiled from the patterns.
+     * @param keywords  the keywords to match alongside the patterns.
+     * @param compare   the comparator used to sort matches by their IDs.
+     * @param discard   the types of the tokens that should not be produced.
+     */
+    StreamLexer(Readable from, CompiledLexer<T> automaton, KeywordTrie<T> keywords,
+                Comparator<T> compare, Set<T> discard) {
+        this.from = from;
+        this.automaton = automaton;
+        this.keywords = keywords;
+        this.compare = compare;
+        this.discard = discard;
+        window = CharBuffer.allocate(INITIAL_CAPACITY);
+        window.limit(0);
+        windowStart = 0;
+        endReached = false;
+    }
+
+    /**
+     * Makes sure the character at the given position in the window is available,
+     * reading more of the stream if necessary. Characters before the window's
+     * position are dropped to make room.
+     *
+     * @param index the index in the window, relative to its position.
+     * @return whether the character is available, or false if the stream ended first.
+     */
+    private boolean fill(int index) {
+        while (window.remaining() <= index) {
+            if (endReached) return false;
+            windowStart += window.position();
+            window.compact();
+            if (!window.hasRemaining()) {
+                window = CharBuffer.allocate(window.capacity() * 2).put((CharBuffer) window.flip());
+            }
+            try {
+                if (from.read(window) == -1) endReached = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            window.flip();
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next token that is not discarded.
+     *
+     * @return the token, or null if the end of the stream was reached.
+     */
+    private Match<T> readMatch() {
+        while (fill(0)) {
+            int state = automaton.getStartState();
+            int end = (automaton.getAcceptingType(state) != null) ? 0 : -1;
+            T type = (end != -1) ? automaton.getAcceptingType(state) : null;
+            KeywordTrie.Node<T> node = keywords.getRoot();
+            KeywordTrie.Node<T> keyword = null;
+            int index = 0;
+            while ((state != CompiledLexer.DEAD_STATE || node != null) && fill(index)) {
+                char next = window.get(window.position() + index++);
+                if (state != CompiledLexer.DEAD_STATE) {
+                    state = automaton.next(state, next);
+                    if (state != CompiledLexer.DEAD_STATE && automaton.getAcceptingType(state) != null) {
+                        end = index;
+                        type = automaton.getAcceptingType(state);
+                    }
+                }
+                if (node != null) {
+                    node = node.getChild(next);
+                    if (node != null && node.isKeyword()) keyword = node;
+                }
+            }
+            String content = null;
+            if (keyword != null) {
+                T keywordType = keyword.getBestId(compare);
+                if (keyword.getDepth() > end ||
+                        (keyword.getDepth() == end && compare != null && compare.compare(keywordType, type) > 0)) {
+                    end = keyword.getDepth();
+                    type = keywordType;
+                    content = keyword.getKeyword();
+                }
+            }
+            long start = windowStart + window.position();
+            if (end <= 0) throw new TokenizeException("unexpected character at index " + start);
+            if (content == null) content = window.subSequence(0, end).toString();
+            window.position(window.position() + end);
+            if (!discard.contains(type)) {
+                if (start + end > Integer.MAX_VALUE) {
+                    throw new TokenizeException("token at index " + start + " is past the largest index a match can hold");
+                }
+                return new Match<>(null, (int) start, (int) start + end, content, type);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextMatch == null) nextMatch = readMatch();
+        return nextMatch != null;
+    }
+
+    @Override
+    public Match<T> next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Match<T> match = nextMatch;
+        nextMatch = null;
+        return match;
+    }
+
+}
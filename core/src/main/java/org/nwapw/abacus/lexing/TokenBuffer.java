@@ -0,0 +1,239 @@
+package org.nwapw.abacus.lexing;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of tokens stored as offsets into the string they were read from.
+ * The start and end of each token are packed into a single long, so reading
+ * tokens does not create any objects, and the content of a token is only
+ * copied out of the source when it is requested through a {@link Match}.
+ *
+ * @param <T> the type used to identify the tokens.
+ */
+public class TokenBuffer<T> extends AbstractList<Match<T>> implements RandomAccess {
+
+    /**
+     * The initial number of tokens the buffer can hold.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The sequence the tokens were read from.
+     */
+    private final CharSequence source;
+    /**
+     * The index in the source at which reading started.
+     */
+    private final int startAt;
+    /**
+     * The start and end of each token, with the start in the upper half.
+     */
+    private long[] spans;
+    /**
+     * The type of each token.
+     */
+    private Object[] types;
+    /**
+     * The already known content of each token, such as the keyword
+     * it matched, or null if it must be read from the source.
+     */
+    private String[] contents;
+    /**
+     * The index of the last character examined while reading each token
+     * and any discarded tokens after it, plus one.
+     */
+    private int[] reaches;
+    /**
+     * The reach of the discarded tokens read before the first token.
+     */
+    private int leadingReach;
+    /**
+     * The number of tokens in the buffer.
+     */
+    private int size;
+    /**
+     * The version of the lexer's patterns and keywords that produced these tokens.
+     */
+    int lexerVersion;
+
+    /**
+     * Creates a new, empty buffer for tokens read from the given source.
+     *
+     * @param source  the sequence the tokens are read from.
+     * @param startAt the index at which reading starts.
+     */
+    public TokenBuffer(CharSequence source, int startAt) {
+        this.source = source;
+        this.startAt = startAt;
+        spans = new long[INITIAL_CAPACITY];
+        types = new Object[INITIAL_CAPACITY];
+        contents = new String[INITIAL_CAPACITY];
+        reaches = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Makes sure the buffer can hold the given number of tokens.
+     *
+     * @param capacity the number of tokens.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= spans.length) return;
+        int newCapacity = Math.max(capacity, spans.length * 2);
+        spans = Arrays.copyOf(spans, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        contents = Arrays.copyOf(contents, newCapacity);
+        reaches = Arrays.copyOf(reaches, newCapacity);
+    }
+
+    /**
+     * Adds a token to the end of the buffer.
+     *
+     * @param start   the index at which the token starts.
+     * @param end     the index at which the token ends, exclusive.
+     * @param reach   the index of the last character examined while reading the token, plus one.
+     * @param type    the type of the token.
+     * @param content the content of the token if it is already known, or null.
+     */
+    public void addToken(int start, int end, int reach, T type, String content) {
+        ensureCapacity(size + 1);
+        spans[size] = ((long) start << 32) | end;
+        types[size] = type;
+        contents[size] = content;
+        reaches[size] = reach;
+        size++;
+    }
+
+    /**
+     * Adds a range of tokens from another buffer to the end of this buffer,
+     * moving them by the given number of characters.
+     *
+     * @param other the buffer to copy the tokens from.
+     * @param from  the index of the first token to copy.
+     * @param to    the index after the last token to copy.
+     * @param shift the number of characters to move the tokens by.
+     */
+    public void addTokens(TokenBuffer<T> other, int from, int to, int shift) {
+        int count = to - from;
+        if (count <= 0) return;
+        ensureCapacity(size + count);
+        long spanShift = ((long) shift << 32) + shift;
+        for (int i = 0; i < count; i++) {
+            spans[size + i] = other.spans[from + i] + spanShift;
+            reaches[size + i] = other.reaches[from + i] + shift;
+        }
+        System.arraycopy(other.types, from, types, size, count);
+        System.arraycopy(other.contents, from, contents, size, count);
+        size += count;
+    }
+
+    /**
+     * Records that reading a discarded token after the last token examined
+     * characters up to the given index.
+     *
+     * @param reach the index of the last character examined, plus one.
+     */
+    public void extendReach(int reach) {
+        if (size > 0) {
+            reaches[size - 1] = Math.max(reaches[size - 1], reach);
+        } else {
+            leadingReach = Math.max(leadingReach, reach);
+        }
+    }
+
+    /**
+     * Gets the sequence the tokens were read from.
+     *
+     * @return the source sequence.
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the index in the source at which reading started.
+     *
+     * @return the index reading started at.
+     */
+    public int getStartAt() {
+        return startAt;
+    }
+
+    /**
+     * Gets the index of the last character examined while reading the discarded
+     * tokens before the first token, plus one.
+     *
+     * @return the reach of the leading discarded tokens.
+     */
+    public int getLeadingReach() {
+        return leadingReach;
+    }
+
+    /**
+     * Gets the index of the last character examined while reading the given token
+     * and any discarded tokens after it, plus one. Edits after this index cannot
+     * change the token.
+     *
+     * @param index the index of the token.
+     * @return the reach of the token.
+     */
+    public int getReach(int index) {
+        return reaches[index];
+    }
+
+    /**
+     * Gets the index at which the given token starts.
+     *
+     * @param index the index of the token.
+     * @return the start of the token in the source.
+     */
+    public int getStart(int index) {
+        return (int) (spans[index] >>> 32);
+    }
+
+    /**
+     * Gets the index at which the given token ends.
+     *
+     * @param index the index of the token.
+     * @return the end of the token in the source, exclusive.
+     */
+    public int getEnd(int index) {
+        return (int) spans[index];
+    }
+
+    /**
+     * Gets the type of the given token.
+     *
+     * @param index the index of the token.
+     * @return the type of the token.
+     */
+    @SuppressWarnings("unchecked")
+    public T getType(int index) {
+        return (T) types[index];
+    }
+
+    /**
+     * Gets the content of the given token, copying it out of the source if necessary.
+     *
+     * @param index the index of the token.
+     * @return the content of the token.
+     */
+    public String getContent(int index) {
+        String content = contents[index];
+        return (content != null) ? content : source.subSequence(getStart(index), getEnd(index)).toString();
+    }
+
+    @Override
+    public Match<T> get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return new Match<>(source, getStart(index), getEnd(index), contents[index], getType(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+}
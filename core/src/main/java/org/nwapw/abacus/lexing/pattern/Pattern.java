@@ -153,38 +153,53 @@ public class Pattern<T> {
      * @return the resulting chain, or null on error.
      */
     private PatternChain<T> parseValue() {
-        if (index >= source.length()) return null;
+        int character = parseChar();
+        if (character == -1) return null;
+        return new PatternChain<>(new ValueNode<>((char) character));
+    }
+
+    /**
+     * Parses a single, possibly escaped, character from the input.
+     *
+     * @return the character, or -1 on error.
+     */
+    private int parseChar() {
+        if (index >= source.length()) return -1;
         if (source.charAt(index) == '\\') {
-            if (++index >= source.length()) return null;
+            if (++index >= source.length()) return -1;
         }
-        return new PatternChain<>(new ValueNode<>(source.charAt(index++)));
+        return source.charAt(index++);
     }
 
     /**
-     * Parses a [] range from the input into a chain.
+     * Parses a [] range from the input into a chain. The whole
+     * range is collapsed into a single character class node.
      *
      * @return the resulting chain, or null on error.
      */
     private PatternChain<T> parseOr() {
-        Stack<PatternChain<T>> orStack = new Stack<>();
+        CharClassNode<T> node = new CharClassNode<>();
+        int pending = -1;
         index++;
         while (index < source.length() && source.charAt(index) != ']') {
             if (source.charAt(index) == '-') {
                 index++;
-                if (orStack.empty() || orStack.peek().tail.range() == '\0') return null;
-                PatternChain<T> bottomRange = orStack.pop();
-                PatternChain<T> topRange = parseValue();
-                if (topRange == null || topRange.tail.range() == '\0') return null;
+                if (pending <= 0) return null;
+                int top = parseChar();
+                if (top <= 0) return null;
 
-                orStack.push(new PatternChain<>(new RangeNode<>(bottomRange.tail.range(), topRange.tail.range())));
+                node.addRange((char) pending, (char) top);
+                pending = -1;
             } else {
-                PatternChain<T> newChain = parseValue();
-                if (newChain == null) return null;
-                orStack.push(newChain);
+                int character = parseChar();
+                if (character == -1) return null;
+                if (pending != -1) node.addRange((char) pending, (char) pending);
+                pending = character;
             }
         }
         if (index++ >= source.length()) return null;
-        return (orStack.size() == 1) ? orStack.pop() : combineChains(orStack);
+        if (pending != -1) node.addRange((char) pending, (char) pending);
+        return new PatternChain<>(node);
     }
 
     /**
@@ -0,0 +1,101 @@
+package org.nwapw.abacus.lexing.pattern.nodes;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A node that matches any character from a set of characters, such as a [] group.
+ * Membership of ASCII characters is checked using a 128-bit set, and other characters
+ * are looked up in a sorted table of non-overlapping ranges.
+ *
+ * @param <T> the type that's used to tell which pattern this node belongs to.
+ */
+public class CharClassNode<T> extends PatternNode<T> {
+
+    /**
+     * The number of characters stored in the bit set.
+     */
+    private static final int ASCII_COUNT = 128;
+
+    /**
+     * The bits for characters 0 through 63.
+     */
+    private long lowBits;
+    /**
+     * The bits for characters 64 through 127.
+     */
+    private long highBits;
+    /**
+     * The first characters of the ranges, sorted and non-overlapping.
+     */
+    private char[] rangeStarts;
+    /**
+     * The last characters of the ranges, inclusive, in the same order as the starts.
+     */
+    private char[] rangeEnds;
+
+    /**
+     * Creates a new node that doesn't match any characters.
+     */
+    public CharClassNode() {
+        rangeStarts = new char[0];
+        rangeEnds = new char[0];
+    }
+
+    /**
+     * Adds a range of characters to the set matched by this node.
+     *
+     * @param from the bottom bound of the range, inclusive.
+     * @param to   the top bound of the range, inclusive.
+     */
+    public void addRange(char from, char to) {
+        if (from > to) return;
+        for (int character = from; character <= Math.min(to, ASCII_COUNT - 1); character++) {
+            if (character < 64) lowBits |= 1L << character;
+            else highBits |= 1L << (character - 64);
+        }
+
+        int insertAt = 0;
+        while (insertAt < rangeStarts.length && rangeStarts[insertAt] < from) insertAt++;
+        char[] newStarts = new char[rangeStarts.length + 1];
+        char[] newEnds = new char[rangeEnds.length + 1];
+        System.arraycopy(rangeStarts, 0, newStarts, 0, insertAt);
+        System.arraycopy(rangeEnds, 0, newEnds, 0, insertAt);
+        System.arraycopy(rangeStarts, insertAt, newStarts, insertAt + 1, rangeStarts.length - insertAt);
+        System.arraycopy(rangeEnds, insertAt, newEnds, insertAt + 1, rangeEnds.length - insertAt);
+        newStarts[insertAt] = from;
+        newEnds[insertAt] = to;
+
+        int count = 0;
+        for (int i = 0; i < newStarts.length; i++) {
+            if (count > 0 && newStarts[i] <= newEnds[count - 1] + 1) {
+                newEnds[count - 1] = (char) Math.max(newEnds[count - 1], newEnds[i]);
+            } else {
+                newStarts[count] = newStarts[i];
+                newEnds[count] = newEnds[i];
+                count++;
+            }
+        }
+        rangeStarts = Arrays.copyOf(newStarts, count);
+        rangeEnds = Arrays.copyOf(newEnds, count);
+    }
+
+    @Override
+    public boolean matches(char other) {
+        if (other < 64) return (lowBits & (1L << other)) != 0;
+        if (other < ASCII_COUNT) return (highBits & (1L << (other - 64))) != 0;
+        int index = Arrays.binarySearch(rangeStarts, other);
+        if (index >= 0) return true;
+        index = -index - 2;
+        return index >= 0 && other <= rangeEnds[index];
+    }
+
+    @Override
+    public void addBoundariesInto(Collection<Integer> into) {
+        for (int i = 0; i < rangeStarts.length; i++) {
+            into.add((int) rangeStarts[i]);
+            into.add(rangeEnds[i] + 1);
+        }
+    }
+
+}
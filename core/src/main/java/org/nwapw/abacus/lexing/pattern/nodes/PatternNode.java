@@ -47,6 +47,18 @@ public class PatternNode<T> {
         return '\0';
     }
 
+    /**
+     * Adds the boundaries of the character ranges matched by this node
+     * into the given collection. A boundary is either the first character
+     * of a range, or the character just past its end, so that every interval
+     * between two consecutive boundaries is either fully matched by this node,
+     * or not matched at all.
+     *
+     * @param into the collection to add into.
+     */
+    public void addBoundariesInto(Collection<Integer> into) {
+    }
+
     /**
      * Adds this node in a collection of other nodes.
      *
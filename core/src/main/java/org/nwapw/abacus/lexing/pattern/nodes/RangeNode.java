@@ -1,5 +1,7 @@
 package org.nwapw.abacus.lexing.pattern.nodes;
 
+import java.util.Collection;
+
 /**
  * A node that matches a range of characters.
  *
@@ -32,4 +34,10 @@ public class RangeNode<T> extends PatternNode<T> {
         return other >= from && other <= to;
     }
 
+    @Override
+    public void addBoundariesInto(Collection<Integer> into) {
+        into.add((int) from);
+        into.add(to + 1);
+    }
+
 }
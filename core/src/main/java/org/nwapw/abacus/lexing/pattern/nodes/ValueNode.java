@@ -1,5 +1,7 @@
 package org.nwapw.abacus.lexing.pattern.nodes;
 
+import java.util.Collection;
+
 /**
  * A node that matches a single value.
  *
@@ -26,6 +28,12 @@ public class ValueNode<T> extends PatternNode<T> {
         return other == value;
     }
 
+    @Override
+    public void addBoundariesInto(Collection<Integer> into) {
+        into.add((int) value);
+        into.add(value + 1);
+    }
+
     @Override
     public char range() {
         return value;
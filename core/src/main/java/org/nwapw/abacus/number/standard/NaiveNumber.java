@@ -111,11 +111,25 @@ public class NaiveNumber extends NumberInterface {
         return new NaiveNumber(value - Math.floor(value));
     }
 
+    @Override
+    public boolean isInteger() {
+        return !Double.isInfinite(value) && value == Math.floor(value);
+    }
+
     @Override
     public int intValue() {
         return (int) value;
     }
 
+    /**
+     * Gets the double value of this number.
+     *
+     * @return the value of this number.
+     */
+    public double getValue() {
+        return value;
+    }
+
     public String toString() {
         double shiftBy = Math.pow(10, 10);
         return Double.toString(Math.round(value * shiftBy) / shiftBy);
@@ -1,9 +1,11 @@
 package org.nwapw.abacus.number.standard;
 
+import org.nwapw.abacus.exception.ComputationInterruptedException;
 import org.nwapw.abacus.number.NumberInterface;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.math.RoundingMode;
 
 /**
  * A number that uses a BigDecimal to store its value,
@@ -25,24 +27,20 @@ public class PreciseNumber extends NumberInterface {
     public static final PreciseNumber TEN = new PreciseNumber(BigDecimal.TEN);
 
     /**
-     * The number of extra significant figures kept in calculations before rounding for output.
+     * The largest number of bits an integer power may have to be computed exactly,
+     * rather than rounded to the internal precision.
      */
-    private static int numExtraInternalSigFigs = 15;
-
-    /**
-     * MathContext that is used when rounding a number prior to output.
-     */
-    private static MathContext outputContext = new MathContext(50);
-
-    /**
-     * MathContext that is actually used in calculations.
-     */
-    private static MathContext internalContext = new MathContext(outputContext.getPrecision() + numExtraInternalSigFigs);
+    private static final long MAX_EXACT_POWER_BITS = 1 << 16;
 
     /**
      * The value of the PreciseNumber.
      */
     BigDecimal value;
+    /**
+     * The precision of the PreciseNumber, or null if it takes on the precision
+     * of the numbers it is used with.
+     */
+    private Precision precision;
 
     /**
      * Constructs a precise number from the given string.
@@ -51,7 +49,7 @@ public class PreciseNumber extends NumberInterface {
      *               as the BidDecimal(String) constructor.
      */
     public PreciseNumber(String string) {
-        value = new BigDecimal(string);
+        this(string, null);
     }
 
     /**
@@ -60,32 +58,102 @@ public class PreciseNumber extends NumberInterface {
      * @param value a BigDecimal object representing the value of the number.
      */
     public PreciseNumber(BigDecimal value) {
+        this(value, null);
+    }
+
+    /**
+     * Constructs a precise number with the given precision from the given string.
+     *
+     * @param string    a string representation of the number meeting the same conditions
+     *                  as the BidDecimal(String) constructor.
+     * @param precision the precision of the number, or null to use that of the numbers it is used with.
+     */
+    public PreciseNumber(String string, Precision precision) {
+        this(new BigDecimal(string), precision);
+    }
+
+    /**
+     * Constructs a precise number with the given precision from the given BigDecimal.
+     *
+     * @param value     a BigDecimal object representing the value of the number.
+     * @param precision the precision of the number, or null to use that of the numbers it is used with.
+     */
+    public PreciseNumber(BigDecimal value, Precision precision) {
         this.value = value;
+        this.precision = precision;
+    }
+
+    /**
+     * Gets the precision of this number.
+     *
+     * @return the precision, or null if the number takes on the precision of the numbers it is used with.
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Gets the value of this number.
+     *
+     * @return the value of this number.
+     */
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    /**
+     * Gets the MathContext used in calculations with the given precision.
+     *
+     * @param precision the precision of the calculation, or null to use the default.
+     * @return the internal context of the precision.
+     */
+    private static MathContext internalContext(Precision precision) {
+        return (precision == null ? Precision.DEFAULT : precision).getInternalContext();
+    }
+
+    /**
+     * Rounds the result of an operation according to the rounding policy of its precision.
+     *
+     * @param result    the exact result of the operation.
+     * @param precision the precision of the operation.
+     * @return the number holding the rounded result.
+     */
+    private static PreciseNumber rounded(BigDecimal result, Precision precision) {
+        MathContext internalContext = internalContext(precision);
+        RoundingPolicy policy = (precision == null ? Precision.DEFAULT : precision).getRoundingPolicy();
+        boolean round = policy == RoundingPolicy.WORKING_PRECISION || (policy == RoundingPolicy.GUARD_DIGITS
+                && result.precision() > 2 * internalContext.getPrecision());
+        return new PreciseNumber(round ? result.round(internalContext) : result, precision);
     }
 
     @Override
     public int getMaxPrecision() {
-        return internalContext.getPrecision();
+        return internalContext(precision).getPrecision();
     }
 
     @Override
     public NumberInterface multiplyInternal(NumberInterface multiplier) {
-        return new PreciseNumber(this.value.multiply(((PreciseNumber) multiplier).value));
+        PreciseNumber other = (PreciseNumber) multiplier;
+        return rounded(value.multiply(other.value), Precision.combine(precision, other.precision));
     }
 
     @Override
     public NumberInterface divideInternal(NumberInterface divisor) {
-        return new PreciseNumber(value.divide(((PreciseNumber) divisor).value, internalContext));
+        PreciseNumber other = (PreciseNumber) divisor;
+        Precision resultPrecision = Precision.combine(precision, other.precision);
+        return new PreciseNumber(value.divide(other.value, internalContext(resultPrecision)), resultPrecision);
     }
 
     @Override
     public NumberInterface addInternal(NumberInterface summand) {
-        return new PreciseNumber(value.add(((PreciseNumber) summand).value));
+        PreciseNumber other = (PreciseNumber) summand;
+        return rounded(value.add(other.value), Precision.combine(precision, other.precision));
     }
 
     @Override
     public NumberInterface subtractInternal(NumberInterface subtrahend) {
-        return new PreciseNumber(value.subtract(((PreciseNumber) subtrahend).value));
+        PreciseNumber other = (PreciseNumber) subtrahend;
+        return rounded(value.subtract(other.value), Precision.combine(precision, other.precision));
     }
 
     @Override
@@ -94,15 +162,54 @@ public class PreciseNumber extends NumberInterface {
             return PreciseNumber.ONE;
         }
         boolean takeReciprocal = exponent < 0;
-        exponent = Math.abs(exponent);
-        NumberInterface power = this;
-        for (int currentExponent = 1; currentExponent < exponent; currentExponent++) {
-            power = power.multiply(this);
-        }
+        long absoluteExponent = Math.abs((long) exponent);
+        MathContext internalContext = internalContext(precision);
+        BigDecimal power = isExactPower(absoluteExponent)
+                ? new BigDecimal(value.toBigIntegerExact().pow((int) absoluteExponent))
+                : roundedPow(value, absoluteExponent, internalContext);
         if (takeReciprocal) {
-            power = PreciseNumber.ONE.divide(power);
+            return new PreciseNumber(BigDecimal.ONE.divide(power, internalContext), precision);
+        }
+        return new PreciseNumber(power, precision);
+    }
+
+    /**
+     * Checks whether raising this number to the given power can be done exactly, using
+     * BigInteger arithmetic. This is the case when the number is an integer and the result
+     * has no more than {@link #MAX_EXACT_POWER_BITS} bits.
+     *
+     * @param exponent the exponent, which is positive.
+     * @return whether the power can be computed exactly.
+     */
+    private boolean isExactPower(long exponent) {
+        if (value.signum() == 0) return true;
+        if (value.scale() > 0 && value.stripTrailingZeros().scale() > 0) return false;
+        long bits = value.toBigInteger().abs().bitLength();
+        return bits * exponent <= MAX_EXACT_POWER_BITS;
+    }
+
+    /**
+     * Raises the given value to a positive power by repeated squaring, rounding to the internal
+     * precision after every multiplication. This takes a number of multiplications that is
+     * logarithmic in the exponent, and keeps every operand at a bounded number of digits.
+     *
+     * @param base            the value to raise to a power.
+     * @param exponent        the exponent, which is positive.
+     * @param internalContext the context to round to.
+     * @return the resulting value.
+     */
+    private static BigDecimal roundedPow(BigDecimal base, long exponent, MathContext internalContext) {
+        BigDecimal result = BigDecimal.ONE;
+        BigDecimal square = base.round(internalContext);
+        while (true) {
+            if ((exponent & 1) == 1) {
+                result = result.multiply(square, internalContext);
+            }
+            exponent >>= 1;
+            if (exponent == 0) return result;
+            if (Thread.currentThread().isInterrupted()) throw new ComputationInterruptedException();
+            square = square.multiply(square, internalContext);
         }
-        return power;
     }
 
     @Override
@@ -117,31 +224,25 @@ public class PreciseNumber extends NumberInterface {
 
     @Override
     public NumberInterface ceilingInternal() {
-        String str = value.toPlainString();
-        int decimalIndex = str.indexOf('.');
-        if (decimalIndex != -1) {
-            return this.floor().add(ONE);
-        }
-        return this;
+        if (value.scale() <= 0) return this;
+        return new PreciseNumber(value.setScale(0, RoundingMode.CEILING), precision);
     }
 
     @Override
     public NumberInterface floorInternal() {
-        String str = value.toPlainString();
-        int decimalIndex = str.indexOf('.');
-        if (decimalIndex != -1) {
-            NumberInterface floor = new PreciseNumber(str.substring(0, decimalIndex));
-            if (signum() == -1) {
-                floor = floor.subtract(ONE);
-            }
-            return floor;
-        }
-        return this;
+        if (value.scale() <= 0) return this;
+        return new PreciseNumber(value.setScale(0, RoundingMode.FLOOR), precision);
     }
 
     @Override
     public NumberInterface fractionalPartInternal() {
-        return this.subtractInternal(floorInternal());
+        if (value.scale() <= 0) return new PreciseNumber(BigDecimal.ZERO, precision);
+        return new PreciseNumber(value.subtract(value.setScale(0, RoundingMode.FLOOR)), precision);
+    }
+
+    @Override
+    public boolean isInteger() {
+        return value.scale() <= 0 || value.signum() == 0 || value.stripTrailingZeros().scale() <= 0;
     }
 
     @Override
@@ -151,16 +252,17 @@ public class PreciseNumber extends NumberInterface {
 
     @Override
     public NumberInterface negateInternal() {
-        return new PreciseNumber(value.negate());
+        return new PreciseNumber(value.negate(), precision);
     }
 
     @Override
     public String toString() {
-        return value.round(outputContext).toString();
+        return value.round((precision == null ? Precision.DEFAULT : precision).getOutputContext()).toString();
     }
 
     @Override
     public NumberInterface getMaxError() {
-        return new PreciseNumber(value.ulp()).multiplyInternal(TEN.intPowInternal(value.precision() - internalContext.getPrecision()));
+        return new PreciseNumber(value.ulp(), precision)
+                .multiplyInternal(TEN.intPowInternal(value.precision() - getMaxPrecision()));
     }
 }
@@ -0,0 +1,123 @@
+package org.nwapw.abacus.number.standard;
+
+import java.math.MathContext;
+
+/**
+ * The number of digits a {@link PreciseNumber} is computed and output with, along with
+ * the policy used to round intermediate results. Calculations keep a few more digits
+ * than are output, so that rounding errors don't show up in the result.
+ */
+public final class Precision {
+
+    /**
+     * The number of extra significant figures kept in calculations before rounding for output.
+     */
+    private static final int EXTRA_INTERNAL_DIGITS = 15;
+
+    /**
+     * The precision used by numbers that weren't given one.
+     */
+    public static final Precision DEFAULT = new Precision(50);
+
+    /**
+     * MathContext that is used when rounding a number prior to output.
+     */
+    private final MathContext outputContext;
+    /**
+     * MathContext that is actually used in calculations.
+     */
+    private final MathContext internalContext;
+    /**
+     * The policy used to round the results of addition, subtraction and multiplication.
+     */
+    private final RoundingPolicy roundingPolicy;
+
+    /**
+     * Creates a new precision with the given number of output digits, which rounds
+     * every result to the working precision.
+     *
+     * @param digits the number of significant digits to output, which must be positive.
+     */
+    public Precision(int digits) {
+        this(digits, RoundingPolicy.WORKING_PRECISION);
+    }
+
+    /**
+     * Creates a new precision with the given number of output digits and rounding policy.
+     *
+     * @param digits         the number of significant digits to output, which must be positive.
+     * @param roundingPolicy the policy used to round the results of addition, subtraction and multiplication.
+     */
+    public Precision(int digits, RoundingPolicy roundingPolicy) {
+        if (digits <= 0) throw new IllegalArgumentException("precision must be positive.");
+        if (roundingPolicy == null) throw new IllegalArgumentException("rounding policy must not be null.");
+        outputContext = new MathContext(digits);
+        internalContext = new MathContext(digits + EXTRA_INTERNAL_DIGITS);
+        this.roundingPolicy = roundingPolicy;
+    }
+
+    /**
+     * Gets the number of significant digits that are output.
+     *
+     * @return the number of output digits.
+     */
+    public int getDigits() {
+        return outputContext.getPrecision();
+    }
+
+    /**
+     * Gets the MathContext used to round a number prior to output.
+     *
+     * @return the output context.
+     */
+    public MathContext getOutputContext() {
+        return outputContext;
+    }
+
+    /**
+     * Gets the MathContext used in calculations.
+     *
+     * @return the internal context.
+     */
+    public MathContext getInternalContext() {
+        return internalContext;
+    }
+
+    /**
+     * Gets the policy used to round the results of addition, subtraction and multiplication.
+     * Division always rounds to the internal precision, regardless of the policy.
+     *
+     * @return the rounding policy.
+     */
+    public RoundingPolicy getRoundingPolicy() {
+        return roundingPolicy;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Precision &&
+                ((Precision) obj).getDigits() == getDigits() &&
+                ((Precision) obj).roundingPolicy == roundingPolicy;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getDigits() + roundingPolicy.hashCode();
+    }
+
+    /**
+     * Gets the precision to use for a calculation with two numbers.
+     * A number without a precision takes on the precision of the other one,
+     * and otherwise the higher of the two precisions is used.
+     *
+     * @param first  the precision of the first number, or null.
+     * @param second the precision of the second number, or null.
+     * @return the precision to use, or null if neither number has one.
+     */
+    static Precision combine(Precision first, Precision second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return first.getDigits() >= second.getDigits() ? first : second;
+    }
+
+}
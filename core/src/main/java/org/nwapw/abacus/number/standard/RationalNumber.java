@@ -0,0 +1,406 @@
+package org.nwapw.abacus.number.standard;
+
+import org.nwapw.abacus.number.NumberInterface;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * A number that stores its value exactly, as a fraction of two integers.
+ * The numerator and denominator are kept in longs for as long as they fit,
+ * and are only moved into BigIntegers when a calculation would overflow.
+ * Fractions held in longs are only reduced to lowest terms when they have to be,
+ * which is before they are output, or when a calculation with them would otherwise overflow.
+ * Like the other numbers, rational numbers are immutable, and reducing one creates a new number.
+ */
+public class RationalNumber extends NumberInterface {
+
+    /**
+     * The number zero.
+     */
+    public static final RationalNumber ZERO = new RationalNumber(0, 1);
+    /**
+     * The number one.
+     */
+    public static final RationalNumber ONE = new RationalNumber(1, 1);
+
+    /**
+     * The largest number of bits a value may have to be stored in a long.
+     * This leaves out Long.MIN_VALUE, which has no positive counterpart.
+     */
+    private static final int MAX_LONG_BITS = 62;
+
+    /**
+     * The numerator, if the fraction is stored in longs.
+     */
+    private long numerator;
+    /**
+     * The denominator, which is always positive, if the fraction is stored in longs.
+     */
+    private long denominator;
+    /**
+     * The numerator, or null if the fraction is stored in longs.
+     */
+    private BigInteger bigNumerator;
+    /**
+     * The denominator, which is always positive, or null if the fraction is stored in longs.
+     */
+    private BigInteger bigDenominator;
+    /**
+     * Whether the fraction is known to be in lowest terms. Fractions stored
+     * in BigIntegers are always in lowest terms.
+     */
+    private boolean reduced;
+
+    /**
+     * Creates a new rational number from the given decimal string.
+     *
+     * @param string a string representation of the number meeting the same conditions
+     *               as the BigDecimal(String) constructor.
+     */
+    public RationalNumber(String string) {
+        this(new BigDecimal(string));
+    }
+
+    /**
+     * Creates a new rational number with the same value as the given BigDecimal.
+     *
+     * @param value the value of the number.
+     */
+    public RationalNumber(BigDecimal value) {
+        this(value.scale() <= 0 ? value.toBigIntegerExact() : value.unscaledValue(),
+                value.scale() <= 0 ? BigInteger.ONE : BigInteger.TEN.pow(value.scale()));
+    }
+
+    /**
+     * Creates a new rational number with the given numerator and denominator.
+     *
+     * @param numerator   the numerator.
+     * @param denominator the denominator, which must not be zero.
+     */
+    public RationalNumber(long numerator, long denominator) {
+        this(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+    }
+
+    /**
+     * Creates a new rational number with the given numerator and denominator.
+     *
+     * @param numerator   the numerator.
+     * @param denominator the denominator, which must not be zero.
+     */
+    public RationalNumber(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) throw new ArithmeticException("Division by zero");
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        if (numerator.bitLength() <= MAX_LONG_BITS && denominator.bitLength() <= MAX_LONG_BITS) {
+            this.numerator = numerator.longValue();
+            this.denominator = denominator.longValue();
+        } else {
+            BigInteger gcd = numerator.gcd(denominator);
+            setBig(numerator.divide(gcd), denominator.divide(gcd));
+        }
+    }
+
+    /**
+     * Creates a new rational number held in longs, without checking its denominator.
+     *
+     * @param numerator   the numerator.
+     * @param denominator the denominator, which must be positive.
+     * @param reduced     whether the fraction is known to be in lowest terms.
+     */
+    private RationalNumber(long numerator, long denominator, boolean reduced) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.reduced = reduced;
+    }
+
+    /**
+     * Creates a rational number from a numerator and a denominator that were computed in longs,
+     * without reducing it to lowest terms.
+     *
+     * @param numerator   the numerator.
+     * @param denominator the denominator, which must be positive.
+     * @return the resulting number.
+     */
+    private static RationalNumber fromLong(long numerator, long denominator) {
+        if (numerator == Long.MIN_VALUE) return fromBig(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+        return new RationalNumber(numerator, denominator, false);
+    }
+
+    /**
+     * Stores the given fraction, which is in lowest terms, moving it into longs if it fits.
+     *
+     * @param numerator   the numerator.
+     * @param denominator the denominator, which must be positive.
+     */
+    private void setBig(BigInteger numerator, BigInteger denominator) {
+        reduced = true;
+        if (numerator.bitLength() <= MAX_LONG_BITS && denominator.bitLength() <= MAX_LONG_BITS) {
+            this.numerator = numerator.longValue();
+            this.denominator = denominator.longValue();
+        } else {
+            bigNumerator = numerator;
+            bigDenominator = denominator;
+        }
+    }
+
+    /**
+     * Creates a rational number from a numerator and a denominator, reducing it to lowest terms.
+     *
+     * @param numerator   the numerator.
+     * @param denominator the denominator, which must be positive.
+     * @return the resulting number.
+     */
+    private static RationalNumber fromBig(BigInteger numerator, BigInteger denominator) {
+        BigInteger gcd = numerator.gcd(denominator);
+        return fromReduced(numerator.divide(gcd), denominator.divide(gcd));
+    }
+
+    /**
+     * Creates a rational number from a numerator and a denominator that are already in lowest terms.
+     *
+     * @param numerator   the numerator.
+     * @param denominator the denominator, which must be positive.
+     * @return the resulting number.
+     */
+    private static RationalNumber fromReduced(BigInteger numerator, BigInteger denominator) {
+        RationalNumber number = new RationalNumber(0, 1, true);
+        number.setBig(numerator, denominator);
+        return number;
+    }
+
+    /**
+     * Checks whether the fraction is stored in longs.
+     *
+     * @return whether the fraction is stored in longs.
+     */
+    private boolean isSmall() {
+        return bigNumerator == null;
+    }
+
+    /**
+     * Gets the numerator of the fraction in lowest terms.
+     *
+     * @return the numerator.
+     */
+    public BigInteger getNumerator() {
+        RationalNumber reduced = reduced();
+        return reduced.isSmall() ? BigInteger.valueOf(reduced.numerator) : reduced.bigNumerator;
+    }
+
+    /**
+     * Gets the denominator of the fraction in lowest terms. The denominator is always positive.
+     *
+     * @return the denominator.
+     */
+    public BigInteger getDenominator() {
+        RationalNumber reduced = reduced();
+        return reduced.isSmall() ? BigInteger.valueOf(reduced.denominator) : reduced.bigDenominator;
+    }
+
+    /**
+     * Gets this number with its fraction in lowest terms.
+     *
+     * @return this number if it is already in lowest terms, or a new number with the same value that is.
+     */
+    private RationalNumber reduced() {
+        if (reduced) return this;
+        long gcd = gcd(Math.abs(numerator), denominator);
+        return new RationalNumber(numerator / gcd, denominator / gcd, true);
+    }
+
+    /**
+     * Computes the greatest common divisor of two non-negative longs using the binary GCD algorithm,
+     * which only uses shifts and subtractions.
+     *
+     * @param first  the first number.
+     * @param second the second number.
+     * @return the greatest common divisor, or the other number if one of them is zero.
+     */
+    static long gcd(long first, long second) {
+        if (first == 0) return second;
+        if (second == 0) return first;
+        int shift = Long.numberOfTrailingZeros(first | second);
+        first >>= Long.numberOfTrailingZeros(first);
+        do {
+            second >>= Long.numberOfTrailingZeros(second);
+            if (first > second) {
+                long swap = first;
+                first = second;
+                second = swap;
+            }
+            second -= first;
+        } while (second != 0);
+        return first << shift;
+    }
+
+    /**
+     * Converts this number to a BigDecimal, rounding it to the given context.
+     *
+     * @param context the context to round to.
+     * @return the value of this number as a BigDecimal.
+     */
+    public BigDecimal toBigDecimal(MathContext context) {
+        return new BigDecimal(getNumerator()).divide(new BigDecimal(getDenominator()), context);
+    }
+
+    @Override
+    public int getMaxPrecision() {
+        return Precision.DEFAULT.getInternalContext().getPrecision();
+    }
+
+    @Override
+    public NumberInterface getMaxError() {
+        NumberInterface magnitude = signum() == 0 ? ONE : signum() < 0 ? negateInternal() : this;
+        return magnitude.divideInternal(new RationalNumber(BigInteger.TEN.pow(getMaxPrecision()), BigInteger.ONE));
+    }
+
+    @Override
+    public NumberInterface addInternal(NumberInterface summand) {
+        RationalNumber other = (RationalNumber) summand;
+        if (isSmall() && other.isSmall()) {
+            try {
+                if (denominator == other.denominator) {
+                    return fromLong(Math.addExact(numerator, other.numerator), denominator);
+                }
+                return fromLong(Math.addExact(Math.multiplyExact(numerator, other.denominator),
+                        Math.multiplyExact(other.numerator, denominator)), Math.multiplyExact(denominator, other.denominator));
+            } catch (ArithmeticException e) {
+                if (!reduced || !other.reduced) return reduced().addInternal(other.reduced());
+            }
+        }
+        BigInteger otherDenominator = other.getDenominator();
+        return fromBig(getNumerator().multiply(otherDenominator).add(other.getNumerator().multiply(getDenominator())),
+                getDenominator().multiply(otherDenominator));
+    }
+
+    @Override
+    public NumberInterface subtractInternal(NumberInterface subtrahend) {
+        return addInternal(subtrahend.negateInternal());
+    }
+
+    @Override
+    public NumberInterface multiplyInternal(NumberInterface multiplier) {
+        RationalNumber other = (RationalNumber) multiplier;
+        if (isSmall() && other.isSmall()) {
+            try {
+                return fromLong(Math.multiplyExact(numerator, other.numerator),
+                        Math.multiplyExact(denominator, other.denominator));
+            } catch (ArithmeticException e) {
+                if (!reduced || !other.reduced) return reduced().multiplyInternal(other.reduced());
+            }
+        }
+        return fromBig(getNumerator().multiply(other.getNumerator()), getDenominator().multiply(other.getDenominator()));
+    }
+
+    @Override
+    public NumberInterface divideInternal(NumberInterface divisor) {
+        return multiplyInternal(((RationalNumber) divisor).reciprocal());
+    }
+
+    /**
+     * Gets the reciprocal of this number.
+     *
+     * @return the reciprocal.
+     * @throws ArithmeticException if this number is zero.
+     */
+    private RationalNumber reciprocal() {
+        if (signum() == 0) throw new ArithmeticException("Division by zero");
+        if (isSmall()) {
+            return numerator < 0
+                    ? new RationalNumber(-denominator, -numerator, reduced)
+                    : new RationalNumber(denominator, numerator, reduced);
+        }
+        return bigNumerator.signum() < 0
+                ? fromBig(bigDenominator.negate(), bigNumerator.negate())
+                : fromBig(bigDenominator, bigNumerator);
+    }
+
+    @Override
+    public NumberInterface negateInternal() {
+        if (isSmall()) return new RationalNumber(-numerator, denominator, reduced);
+        return fromReduced(bigNumerator.negate(), bigDenominator);
+    }
+
+    @Override
+    public NumberInterface intPowInternal(int exponent) {
+        if (exponent == 0) return ONE;
+        RationalNumber base = exponent < 0 ? reciprocal() : reduced();
+        int absoluteExponent = Math.abs(exponent);
+        return fromReduced(base.getNumerator().pow(absoluteExponent), base.getDenominator().pow(absoluteExponent));
+    }
+
+    @Override
+    public int compareTo(NumberInterface number) {
+        RationalNumber other = (RationalNumber) number;
+        if (isSmall() && other.isSmall()) {
+            try {
+                return Long.compare(Math.multiplyExact(numerator, other.denominator),
+                        Math.multiplyExact(other.numerator, denominator));
+            } catch (ArithmeticException e) {
+                // Fall through to the exact comparison below.
+            }
+        }
+        return getNumerator().multiply(other.getDenominator()).compareTo(other.getNumerator().multiply(getDenominator()));
+    }
+
+    @Override
+    public int signum() {
+        return isSmall() ? Long.signum(numerator) : bigNumerator.signum();
+    }
+
+    @Override
+    public NumberInterface ceilingInternal() {
+        if (isSmall()) return new RationalNumber(-Math.floorDiv(-numerator, denominator), 1, true);
+        BigInteger[] division = bigNumerator.divideAndRemainder(bigDenominator);
+        if (division[1].signum() > 0) return fromBig(division[0].add(BigInteger.ONE), BigInteger.ONE);
+        return fromBig(division[0], BigInteger.ONE);
+    }
+
+    @Override
+    public NumberInterface floorInternal() {
+        if (isSmall()) return new RationalNumber(Math.floorDiv(numerator, denominator), 1, true);
+        BigInteger[] division = bigNumerator.divideAndRemainder(bigDenominator);
+        if (division[1].signum() < 0) return fromBig(division[0].subtract(BigInteger.ONE), BigInteger.ONE);
+        return fromBig(division[0], BigInteger.ONE);
+    }
+
+    @Override
+    public NumberInterface fractionalPartInternal() {
+        return subtractInternal(floorInternal());
+    }
+
+    @Override
+    public boolean isInteger() {
+        return isSmall() ? numerator % denominator == 0 : bigDenominator.equals(BigInteger.ONE);
+    }
+
+    @Override
+    public int intValue() {
+        return isSmall() ? (int) (numerator / denominator) : bigNumerator.divide(bigDenominator).intValue();
+    }
+
+    /**
+     * Converts the number to a string. Integers and fractions whose decimal expansion ends
+     * are written as decimals, and other fractions are written as "numerator/denominator".
+     *
+     * @return the string representation of the number.
+     */
+    @Override
+    public String toString() {
+        BigInteger reducedNumerator = getNumerator();
+        BigInteger reducedDenominator = getDenominator();
+        if (reducedDenominator.equals(BigInteger.ONE)) return reducedNumerator.toString();
+        BigInteger rest = reducedDenominator.shiftRight(reducedDenominator.getLowestSetBit());
+        BigInteger five = BigInteger.valueOf(5);
+        while (rest.mod(five).signum() == 0) {
+            rest = rest.divide(five);
+        }
+        if (!rest.equals(BigInteger.ONE)) return reducedNumerator + "/" + reducedDenominator;
+        return new BigDecimal(reducedNumerator).divide(new BigDecimal(reducedDenominator)).toPlainString();
+    }
+
+}
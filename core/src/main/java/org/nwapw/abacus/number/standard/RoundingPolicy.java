@@ -0,0 +1,22 @@
+package org.nwapw.abacus.number.standard;
+
+/**
+ * The way in which {@link PreciseNumber} keeps the digits of intermediate results in check.
+ */
+public enum RoundingPolicy {
+    /**
+     * Addition, subtraction and multiplication are exact, and only division rounds.
+     * Results of long computations can grow to many more digits than are needed.
+     */
+    EXACT,
+    /**
+     * Every operation rounds its result to the working precision.
+     */
+    WORKING_PRECISION,
+    /**
+     * Results are kept exact until they have more than twice the working precision,
+     * at which point they are rounded to the working precision. Short exact values
+     * are never rounded, while long computations still stay bounded.
+     */
+    GUARD_DIGITS
+}
@@ -3,13 +3,16 @@ package org.nwapw.abacus.parsing.standard;
 import org.nwapw.abacus.exception.TokenizeException;
 import org.nwapw.abacus.lexing.Lexer;
 import org.nwapw.abacus.lexing.Match;
-import org.nwapw.abacus.lexing.pattern.Pattern;
+import org.nwapw.abacus.lexing.TokenBuffer;
 import org.nwapw.abacus.parsing.Tokenizer;
 import org.nwapw.abacus.plugin.PluginListener;
 import org.nwapw.abacus.plugin.PluginManager;
 
 import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A tokenzier that uses the lexer class and registered function and operator
@@ -21,6 +24,10 @@ public class LexerTokenizer implements Tokenizer<Match<TokenType>>, PluginListen
      * Comparator used to sort the tokens produced by the lexer.
      */
     protected static final Comparator<TokenType> TOKEN_SORTER = (o1, o2) -> o1.priority - o2.priority;
+    /**
+     * The types of tokens that are dropped by the lexer, since the parser doesn't need them.
+     */
+    protected static final Set<TokenType> DISCARDED_TYPES = EnumSet.of(TokenType.WHITESPACE);
 
     /**
      * The lexer instance used to turn strings into matches.
@@ -32,6 +39,7 @@ public class LexerTokenizer implements Tokenizer<Match<TokenType>>, PluginListen
      */
     public LexerTokenizer() {
         lexer = new Lexer<TokenType>() {{
+            setCompiledMode(true);
             register(" ", TokenType.WHITESPACE);
             register(",", TokenType.COMMA);
             register("[0-9]*(\\.[0-9]+)?", TokenType.NUM);
@@ -43,41 +51,83 @@ public class LexerTokenizer implements Tokenizer<Match<TokenType>>, PluginListen
 
     @Override
     public List<Match<TokenType>> tokenizeString(String string) {
-        List<Match<TokenType>> tokens = lexer.lexAll(string, 0, TOKEN_SORTER);
+        List<Match<TokenType>> tokens = lexer.lexAll(string, 0, TOKEN_SORTER, DISCARDED_TYPES);
         if(tokens == null) throw new TokenizeException();
         return tokens;
     }
 
+    /**
+     * Tokenizes a string produced by editing the string that the given tokens were read from.
+     * Only the tokens around the edit are read again, so the cost of matching patterns depends
+     * on the size of the edit rather than on the length of the string. The edited string and
+     * the unchanged tokens are still copied, which takes linear time, but is much cheaper than
+     * matching them again.
+     *
+     * @param previous the tokens returned by this tokenizer for the string before the edit.
+     * @param offset   the index at which the edit occurred.
+     * @param removed  the number of characters removed at the offset.
+     * @param inserted the text inserted at the offset.
+     * @return the tokens of the edited string.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Match<TokenType>> tokenizeEdit(List<Match<TokenType>> previous, int offset, int removed, String inserted) {
+        if (!(previous instanceof TokenBuffer)) throw new IllegalArgumentException("Tokens were not produced by a lexer.");
+        TokenBuffer<TokenType> buffer = (TokenBuffer<TokenType>) previous;
+        CharSequence source = buffer.getSource();
+        String string = new StringBuilder(source.length() - removed + inserted.length())
+                .append(source, 0, offset).append(inserted)
+                .append(source, offset + removed, source.length()).toString();
+        List<Match<TokenType>> tokens = lexer.relexAll(buffer, string, offset, inserted.length(),
+                TOKEN_SORTER, DISCARDED_TYPES);
+        if (tokens == null) throw new TokenizeException();
+        return tokens;
+    }
+
+    /**
+     * Tokenizes a stream of characters, without reading all of it into memory.
+     * The tokens are read as they are requested from the returned iterator.
+     *
+     * @param from the stream to tokenize, such as a {@link java.io.Reader}.
+     * @return the iterator over the tokens of the stream.
+     */
+    public Iterator<Match<TokenType>> tokenizeStream(Readable from) {
+        return lexer.lexStream(from, TOKEN_SORTER, DISCARDED_TYPES);
+    }
+
     @Override
     public void onLoad(PluginManager manager) {
-        for (String operator : manager.getAllOperators()) {
-            lexer.register(Pattern.sanitize(operator), TokenType.OP);
-        }
-        for (String operator : manager.getAllTreeValueOperators()) {
-            lexer.register(Pattern.sanitize(operator), TokenType.TREE_VALUE_OP);
-        }
-        for (String function : manager.getAllFunctions()) {
-            lexer.register(Pattern.sanitize(function), TokenType.FUNCTION);
-        }
-        for (String function : manager.getAllTreeValueFunctions()) {
-            lexer.register(Pattern.sanitize(function), TokenType.TREE_VALUE_FUNCTION);
-        }
+        lexer.updateKeywords(keywords -> {
+            for (String operator : manager.getAllOperators()) {
+                keywords.register(operator, TokenType.OP);
+            }
+            for (String operator : manager.getAllTreeValueOperators()) {
+                keywords.register(operator, TokenType.TREE_VALUE_OP);
+            }
+            for (String function : manager.getAllFunctions()) {
+                keywords.register(function, TokenType.FUNCTION);
+            }
+            for (String function : manager.getAllTreeValueFunctions()) {
+                keywords.register(function, TokenType.TREE_VALUE_FUNCTION);
+            }
+        });
     }
 
     @Override
     public void onUnload(PluginManager manager) {
-        for (String operator : manager.getAllOperators()) {
-            lexer.unregister(Pattern.sanitize(operator), TokenType.OP);
-        }
-        for (String operator : manager.getAllTreeValueOperators()) {
-            lexer.unregister(Pattern.sanitize(operator), TokenType.TREE_VALUE_OP);
-        }
-        for (String function : manager.getAllFunctions()) {
-            lexer.unregister(Pattern.sanitize(function), TokenType.FUNCTION);
-        }
-        for (String function : manager.getAllTreeValueFunctions()) {
-            lexer.unregister(Pattern.sanitize(function), TokenType.TREE_VALUE_FUNCTION);
-        }
+        lexer.updateKeywords(keywords -> {
+            for (String operator : manager.getAllOperators()) {
+                keywords.unregister(operator, TokenType.OP);
+            }
+            for (String operator : manager.getAllTreeValueOperators()) {
+                keywords.unregister(operator, TokenType.TREE_VALUE_OP);
+            }
+            for (String function : manager.getAllFunctions()) {
+                keywords.unregister(function, TokenType.FUNCTION);
+            }
+            for (String function : manager.getAllTreeValueFunctions()) {
+                keywords.unregister(function, TokenType.TREE_VALUE_FUNCTION);
+            }
+        });
     }
 
 }
@@ -0,0 +1,350 @@
+package org.nwapw.abacus.parsing.standard;
+
+import org.nwapw.abacus.exception.ParseException;
+import org.nwapw.abacus.function.Operator;
+import org.nwapw.abacus.function.OperatorAssociativity;
+import org.nwapw.abacus.function.OperatorType;
+import org.nwapw.abacus.lexing.Match;
+import org.nwapw.abacus.parsing.Parser;
+import org.nwapw.abacus.plugin.PluginListener;
+import org.nwapw.abacus.plugin.PluginManager;
+import org.nwapw.abacus.tree.nodes.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parser that uses precedence climbing to build a parse tree directly
+ * from the tokens, in a single pass over them. It produces the same trees
+ * as the {@link ShuntingYardParser}, but never needs to rearrange or remove tokens.
+ */
+public class PrattParser implements Parser<Match<TokenType>>, PluginListener {
+
+    /**
+     * The operator that a "-" in place of an operand is turned into.
+     */
+    private static final String NEGATE_OPERATOR = "`";
+
+    /**
+     * Map of operator precedences, loaded from the plugin operators.
+     */
+    private Map<String, Integer> precedenceMap;
+    /**
+     * Map of operator associativity, loaded from the plugin operators.
+     */
+    private Map<String, OperatorAssociativity> associativityMap;
+    /**
+     * Map of operator types, loaded from plugin operators.
+     */
+    private Map<String, OperatorType> typeMap;
+
+    /**
+     * Creates a new Pratt parser.
+     */
+    public PrattParser() {
+        precedenceMap = new HashMap<>();
+        associativityMap = new HashMap<>();
+        typeMap = new HashMap<>();
+    }
+
+    /**
+     * Gets the type of the given operator, making sure it is known.
+     *
+     * @param operator the operator.
+     * @return the type of the operator.
+     */
+    private OperatorType typeOf(String operator) {
+        OperatorType type = typeMap.get(operator);
+        if (type == null) throw new ParseException("unknown operator \"" + operator + "\"");
+        return type;
+    }
+
+    /**
+     * Checks whether the given token is an operator.
+     *
+     * @param matchType the type of the token.
+     * @return whether the token is an operator.
+     */
+    private static boolean isOperator(TokenType matchType) {
+        return matchType == TokenType.OP || matchType == TokenType.TREE_VALUE_OP;
+    }
+
+    /**
+     * Checks whether the given token is a function.
+     *
+     * @param matchType the type of the token.
+     * @return whether the token is a function.
+     */
+    private static boolean isFunction(TokenType matchType) {
+        return matchType == TokenType.FUNCTION || matchType == TokenType.TREE_VALUE_FUNCTION;
+    }
+
+    /**
+     * Parses an expression, including all binary operators that bind
+     * tighter than the given precedence.
+     *
+     * @param cursor     the cursor over the tokens.
+     * @param precedence the precedence of the operator the expression is an operand of.
+     * @return the parsed expression.
+     */
+    private TreeNode parseExpression(Cursor cursor, int precedence) {
+        TreeNode left = parseUnary(cursor);
+        while (cursor.hasNext() && isOperator(cursor.peekType())) {
+            Match<TokenType> match = cursor.peek();
+            String operator = match.getContent();
+            if (typeOf(operator) != OperatorType.BINARY_INFIX) break;
+            int otherPrecedence = precedenceMap.get(operator);
+            if (otherPrecedence < precedence || (otherPrecedence == precedence &&
+                    associativityMap.get(operator) != OperatorAssociativity.RIGHT)) break;
+            cursor.next();
+            TreeNode right = parseExpression(cursor, otherPrecedence);
+            if (match.getType() == TokenType.OP) {
+                left = new NumberBinaryNode(operator, left, right);
+            } else {
+                left = new TreeValueBinaryNode(operator, left, right);
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Parses an operand, along with any prefix operators before it.
+     * A "-" in this position is treated as negation.
+     *
+     * @param cursor the cursor over the tokens.
+     * @return the parsed operand.
+     */
+    private TreeNode parseUnary(Cursor cursor) {
+        if (!cursor.hasNext()) throw new ParseException("no tokens left in input");
+        if (!isOperator(cursor.peekType())) return parseOperand(cursor);
+        Match<TokenType> match = cursor.next();
+        String operator = match.getContent();
+        TokenType matchType = match.getType();
+        if (operator.equals("-")) {
+            operator = NEGATE_OPERATOR;
+            matchType = TokenType.OP;
+        }
+        if (typeOf(operator) != OperatorType.UNARY_PREFIX) {
+            throw new ParseException("operator \"" + operator + "\" is missing an operand");
+        }
+        TreeNode applyTo = parseExpression(cursor, precedenceMap.get(operator));
+        if (matchType == TokenType.OP) {
+            return new NumberUnaryNode(operator, applyTo);
+        } else {
+            return new TreeValueUnaryNode(operator, applyTo);
+        }
+    }
+
+    /**
+     * Parses a number, a variable, a function call or a parenthesized expression,
+     * and applies any postfix operators after it.
+     *
+     * @param cursor the cursor over the tokens.
+     * @return the parsed operand.
+     */
+    private TreeNode parseOperand(Cursor cursor) {
+        Match<TokenType> match = cursor.next();
+        TokenType matchType = match.getType();
+        TreeNode node;
+        if (matchType == TokenType.NUM) {
+            node = new NumberNode(match.getContent());
+        } else if (matchType == TokenType.VARIABLE) {
+            node = new VariableNode(match.getContent());
+        } else if (isFunction(matchType)) {
+            return parseCall(cursor, match);
+        } else if (matchType == TokenType.OPEN_PARENTH) {
+            List<TreeNode> group = parseGroup(cursor);
+            if (group.size() != 1) throw new ParseException("could not parse all input");
+            node = group.get(0);
+        } else {
+            throw new ParseException("unrecognized token");
+        }
+        return parsePostfix(cursor, node);
+    }
+
+    /**
+     * Parses the arguments of a function call. The arguments are either parenthesized
+     * and separated by commas, or are single operands following the function name.
+     * Postfix operators after the parentheses apply to the last argument.
+     *
+     * @param cursor   the cursor over the tokens.
+     * @param function the token of the function name.
+     * @return the parsed function call.
+     */
+    private TreeNode parseCall(Cursor cursor, Match<TokenType> function) {
+        List<TreeNode> children = new ArrayList<>();
+        while (cursor.hasNext()) {
+            TokenType nextType = cursor.peekType();
+            if (nextType == TokenType.OPEN_PARENTH) {
+                cursor.next();
+                children.addAll(parseGroup(cursor));
+                if (!children.isEmpty()) {
+                    int last = children.size() - 1;
+                    children.set(last, parsePostfix(cursor, children.get(last)));
+                }
+            } else if (nextType == TokenType.NUM || nextType == TokenType.VARIABLE || isFunction(nextType)) {
+                children.add(parseOperand(cursor));
+            } else {
+                break;
+            }
+        }
+        if (function.getType() == TokenType.FUNCTION) {
+            return new NumberFunctionNode(function.getContent(), children);
+        } else {
+            return new TreeValueFunctionNode(function.getContent(), children);
+        }
+    }
+
+    /**
+     * Parses comma separated expressions up to and including the closing parenthesis.
+     *
+     * @param cursor the cursor over the tokens, just after the opening parenthesis.
+     * @return the parsed expressions.
+     */
+    private List<TreeNode> parseGroup(Cursor cursor) {
+        List<TreeNode> expressions = new ArrayList<>();
+        if (cursor.hasNext() && cursor.peekType() == TokenType.CLOSE_PARENTH) {
+            cursor.next();
+            return expressions;
+        }
+        while (true) {
+            expressions.add(parseExpression(cursor, Integer.MIN_VALUE));
+            if (!cursor.hasNext()) throw new ParseException("mismatched parentheses");
+            TokenType nextType = cursor.next().getType();
+            if (nextType == TokenType.CLOSE_PARENTH) return expressions;
+            if (nextType != TokenType.COMMA) throw new ParseException("could not parse all input");
+        }
+    }
+
+    /**
+     * Applies any postfix operators following an operand.
+     *
+     * @param cursor  the cursor over the tokens.
+     * @param applyTo the operand.
+     * @return the operand with the postfix operators applied.
+     */
+    private TreeNode parsePostfix(Cursor cursor, TreeNode applyTo) {
+        while (cursor.hasNext() && isOperator(cursor.peekType())) {
+            Match<TokenType> match = cursor.peek();
+            String operator = match.getContent();
+            if (typeOf(operator) != OperatorType.UNARY_POSTFIX) break;
+            cursor.next();
+            if (match.getType() == TokenType.OP) {
+                applyTo = new NumberUnaryNode(operator, applyTo);
+            } else {
+                applyTo = new TreeValueUnaryNode(operator, applyTo);
+            }
+        }
+        return applyTo;
+    }
+
+    @Override
+    public TreeNode constructTree(List<? extends Match<TokenType>> tokens) {
+        if (tokens.isEmpty()) throw new ParseException("no input tokens");
+        Cursor cursor = new Cursor(tokens);
+        TreeNode constructedTree = parseExpression(cursor, Integer.MIN_VALUE);
+        if (!cursor.hasNext()) return constructedTree;
+        if (cursor.peekType() == TokenType.CLOSE_PARENTH || cursor.peekType() == TokenType.COMMA) {
+            throw new ParseException("mismatched parentheses");
+        }
+        throw new ParseException("could not parse all input");
+    }
+
+    @Override
+    public void onLoad(PluginManager manager) {
+        for (String operator : manager.getAllOperators()) {
+            Operator operatorInstance = manager.operatorFor(operator);
+            precedenceMap.put(operator, operatorInstance.getPrecedence());
+            associativityMap.put(operator, operatorInstance.getAssociativity());
+            typeMap.put(operator, operatorInstance.getType());
+        }
+        for (String operator : manager.getAllTreeValueOperators()) {
+            Operator operatorInstance = manager.treeValueOperatorFor(operator);
+            precedenceMap.put(operator, operatorInstance.getPrecedence());
+            associativityMap.put(operator, operatorInstance.getAssociativity());
+            typeMap.put(operator, operatorInstance.getType());
+        }
+    }
+
+    @Override
+    public void onUnload(PluginManager manager) {
+        precedenceMap.clear();
+        associativityMap.clear();
+        typeMap.clear();
+    }
+
+    /**
+     * A position in the list of tokens being parsed. Tokens are read
+     * by index, and are never removed from the list.
+     */
+    private static class Cursor {
+
+        /**
+         * The tokens being parsed.
+         */
+        private final List<? extends Match<TokenType>> tokens;
+        /**
+         * The index of the next token.
+         */
+        private int index;
+        /**
+         * The next token, if it has been read from the list already.
+         */
+        private Match<TokenType> peeked;
+
+        /**
+         * Creates a new cursor at the start of the given tokens.
+         *
+         * @param tokens the tokens to parse.
+         */
+        private Cursor(List<? extends Match<TokenType>> tokens) {
+            this.tokens = tokens;
+            index = 0;
+        }
+
+        /**
+         * Checks whether there are tokens left.
+         *
+         * @return whether there is a next token.
+         */
+        private boolean hasNext() {
+            return index < tokens.size();
+        }
+
+        /**
+         * Gets the next token without moving past it.
+         *
+         * @return the next token.
+         */
+        private Match<TokenType> peek() {
+            if (peeked == null) peeked = tokens.get(index);
+            return peeked;
+        }
+
+        /**
+         * Gets the type of the next token.
+         *
+         * @return the type of the next token.
+         */
+        private TokenType peekType() {
+            return peek().getType();
+        }
+
+        /**
+         * Moves past the next token.
+         *
+         * @return the token moved past.
+         */
+        private Match<TokenType> next() {
+            if (!hasNext()) throw new ParseException("no tokens left in input");
+            Match<TokenType> match = peek();
+            peeked = null;
+            index++;
+            return match;
+        }
+
+    }
+
+}
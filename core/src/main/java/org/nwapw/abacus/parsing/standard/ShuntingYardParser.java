@@ -42,17 +42,21 @@ public class ShuntingYardParser implements Parser<Match<TokenType>>, PluginListe
 
     /**
      * Rearranges tokens into a postfix list, using Shunting Yard.
+     * The given list is not modified.
      *
      * @param from the tokens to be rearranged.
      * @return the resulting list of rearranged tokens.
      */
-    public List<Match<TokenType>> intoPostfix(List<Match<TokenType>> from) {
-        ArrayList<Match<TokenType>> output = new ArrayList<>();
-        Stack<Match<TokenType>> tokenStack = new Stack<>();
+    public List<Match<TokenType>> intoPostfix(List<? extends Match<TokenType>> from) {
+        ArrayList<Match<TokenType>> output = new ArrayList<>(from.size());
+        Deque<Match<TokenType>> tokenStack = new ArrayDeque<>();
+        Match<TokenType> replacement = null;
+        int index = 0;
         TokenType previousType;
         TokenType matchType = null;
-        while (!from.isEmpty()) {
-            Match<TokenType> match = from.remove(0);
+        while (replacement != null || index < from.size()) {
+            Match<TokenType> match = (replacement != null) ? replacement : from.get(index++);
+            replacement = null;
             previousType = matchType;
             matchType = match.getType();
             if (matchType == TokenType.NUM || matchType == TokenType.VARIABLE) {
@@ -73,11 +77,11 @@ public class ShuntingYardParser implements Parser<Match<TokenType>>, PluginListe
 
                 if (tokenString.equals("-") && (previousType == null || previousType == TokenType.OP ||
                         previousType == TokenType.TREE_VALUE_OP || previousType == TokenType.OPEN_PARENTH)) {
-                    from.add(0, new Match<>("`", TokenType.OP));
+                    replacement = new Match<>("`", TokenType.OP);
                     continue;
                 }
 
-                while (!tokenStack.empty() && type == OperatorType.BINARY_INFIX) {
+                while (!tokenStack.isEmpty() && type == OperatorType.BINARY_INFIX) {
                     Match<TokenType> otherMatch = tokenStack.peek();
                     TokenType otherMatchType = otherMatch.getType();
                     if (!(otherMatchType == TokenType.OP ||
@@ -98,16 +102,16 @@ public class ShuntingYardParser implements Parser<Match<TokenType>>, PluginListe
             } else if (matchType == TokenType.OPEN_PARENTH) {
                 tokenStack.push(match);
             } else if (matchType == TokenType.CLOSE_PARENTH || matchType == TokenType.COMMA) {
-                while (!tokenStack.empty() && tokenStack.peek().getType() != TokenType.OPEN_PARENTH) {
+                while (!tokenStack.isEmpty() && tokenStack.peek().getType() != TokenType.OPEN_PARENTH) {
                     output.add(tokenStack.pop());
                 }
-                if (tokenStack.empty()) throw new ParseException("mismatched parentheses");
+                if (tokenStack.isEmpty()) throw new ParseException("mismatched parentheses");
                 if (matchType == TokenType.CLOSE_PARENTH) {
                     tokenStack.pop();
                 }
             }
         }
-        while (!tokenStack.empty()) {
+        while (!tokenStack.isEmpty()) {
             Match<TokenType> match = tokenStack.peek();
             TokenType newMatchType = match.getType();
             if (!(newMatchType == TokenType.OP ||
@@ -172,14 +176,86 @@ public class ShuntingYardParser implements Parser<Match<TokenType>>, PluginListe
         throw new ParseException("unrecognized token");
     }
 
+    /**
+     * Takes an operand off the stack used for iterative tree construction.
+     *
+     * @param stack the stack of constructed trees.
+     * @param floor the size of the stack below which the operands belong to another function call.
+     * @return the operand.
+     */
+    private static TreeNode popOperand(List<TreeNode> stack, int floor) {
+        if (stack.size() <= floor) {
+            throw new ParseException("no tokens left in input");
+        }
+        return stack.remove(stack.size() - 1);
+    }
+
+    /**
+     * Constructs a tree from a list of tokens in postfix order, using an explicit stack
+     * instead of recursion, so that the depth of the tree is limited only by the heap.
+     * The positions on the stack at which the arguments of each unfinished function call
+     * start are kept on a second stack.
+     *
+     * @param matches the list of tokens in postfix order.
+     * @return the constructed tree expression.
+     */
+    public TreeNode constructIterative(List<? extends Match<TokenType>> matches) {
+        List<TreeNode> stack = new ArrayList<>();
+        int[] boundaries = new int[8];
+        int boundaryCount = 0;
+        for (Match<TokenType> match : matches) {
+            int floor = (boundaryCount == 0) ? 0 : boundaries[boundaryCount - 1];
+            TokenType matchType = match.getType();
+            if (matchType == TokenType.OP || matchType == TokenType.TREE_VALUE_OP) {
+                String operator = match.getContent();
+                OperatorType type = typeMap.get(operator);
+                if (type == OperatorType.BINARY_INFIX) {
+                    TreeNode right = popOperand(stack, floor);
+                    TreeNode left = popOperand(stack, floor);
+                    if (matchType == TokenType.OP) {
+                        stack.add(new NumberBinaryNode(operator, left, right));
+                    } else {
+                        stack.add(new TreeValueBinaryNode(operator, left, right));
+                    }
+                } else {
+                    TreeNode applyTo = popOperand(stack, floor);
+                    if (matchType == TokenType.OP) {
+                        stack.add(new NumberUnaryNode(operator, applyTo));
+                    } else {
+                        stack.add(new TreeValueUnaryNode(operator, applyTo));
+                    }
+                }
+            } else if (matchType == TokenType.NUM) {
+                stack.add(new NumberNode(match.getContent()));
+            } else if (matchType == TokenType.VARIABLE) {
+                stack.add(new VariableNode(match.getContent()));
+            } else if (matchType == TokenType.INTERNAL_FUNCTION_END) {
+                if (boundaryCount == boundaries.length) boundaries = Arrays.copyOf(boundaries, boundaryCount * 2);
+                boundaries[boundaryCount++] = stack.size();
+            } else if (matchType == TokenType.FUNCTION || matchType == TokenType.TREE_VALUE_FUNCTION) {
+                if (boundaryCount == 0) throw new ParseException("incorrectly formatted function call");
+                List<TreeNode> arguments = stack.subList(boundaries[--boundaryCount], stack.size());
+                List<TreeNode> children = new ArrayList<>(arguments);
+                arguments.clear();
+                if (matchType == TokenType.FUNCTION) {
+                    stack.add(new NumberFunctionNode(match.getContent(), children));
+                } else {
+                    stack.add(new TreeValueFunctionNode(match.getContent(), children));
+                }
+            } else {
+                throw new ParseException("unrecognized token");
+            }
+        }
+        int floor = (boundaryCount == 0) ? 0 : boundaries[boundaryCount - 1];
+        if (stack.size() <= floor) throw new ParseException("no tokens left in input");
+        if (stack.size() != 1 || boundaryCount != 0) throw new ParseException("could not parse all input");
+        return stack.get(0);
+    }
+
     @Override
     public TreeNode constructTree(List<? extends Match<TokenType>> tokens) {
         if (tokens.isEmpty()) throw new ParseException("no input tokens");
-        tokens = intoPostfix(new ArrayList<>(tokens));
-        Collections.reverse(tokens);
-        TreeNode constructedTree = constructRecursive(tokens);
-        if(tokens.size() == 0) return constructedTree;
-        throw new ParseException("could not parse all input");
+        return constructIterative(intoPostfix(tokens));
     }
 
     @Override
@@ -8,6 +8,9 @@ import org.nwapw.abacus.function.interfaces.TreeValueFunction;
 import org.nwapw.abacus.function.interfaces.TreeValueOperator;
 import org.nwapw.abacus.number.NumberInterface;
 
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
 /**
  * A plugin class that can be externally implemented and loaded via the
  * plugin manager. Plugins provide functionality to the calculator
@@ -106,6 +109,50 @@ public abstract class Plugin {
         manager.registerTreeValueOperator(name, operator);
     }
 
+    /**
+     * To be used in load(). Registers a double kernel for a unary operator, which is used
+     * in place of the operator when numbers are evaluated as doubles.
+     *
+     * @param name   the name of the operator.
+     * @param kernel the kernel, which returns NaN for arguments outside the operator's domain.
+     */
+    protected final void registerOperatorKernel(String name, DoubleUnaryOperator kernel) {
+        manager.registerOperatorKernel(name, kernel);
+    }
+
+    /**
+     * To be used in load(). Registers a double kernel for a binary operator, which is used
+     * in place of the operator when numbers are evaluated as doubles.
+     *
+     * @param name   the name of the operator.
+     * @param kernel the kernel, which returns NaN for arguments outside the operator's domain.
+     */
+    protected final void registerOperatorKernel(String name, DoubleBinaryOperator kernel) {
+        manager.registerOperatorKernel(name, kernel);
+    }
+
+    /**
+     * To be used in load(). Registers a double kernel for a single argument function, which is used
+     * in place of the function when numbers are evaluated as doubles.
+     *
+     * @param name   the name of the function.
+     * @param kernel the kernel, which returns NaN for arguments outside the function's domain.
+     */
+    protected final void registerFunctionKernel(String name, DoubleUnaryOperator kernel) {
+        manager.registerFunctionKernel(name, kernel);
+    }
+
+    /**
+     * To be used in load(). Registers a double kernel for a two argument function, which is used
+     * in place of the function when numbers are evaluated as doubles.
+     *
+     * @param name   the name of the function.
+     * @param kernel the kernel, which returns NaN for arguments outside the function's domain.
+     */
+    protected final void registerFunctionKernel(String name, DoubleBinaryOperator kernel) {
+        manager.registerFunctionKernel(name, kernel);
+    }
+
     /**
      * To be used in load(). Registers a new number implementation with the plugin.
      * This makes it accessible to the plugin manager.
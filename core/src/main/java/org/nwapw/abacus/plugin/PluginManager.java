@@ -14,6 +14,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 
 /**
  * A class that controls instances of plugins, allowing for them
@@ -45,6 +47,22 @@ public class PluginManager {
      * The map of tree value operators registered by the plugins.
      */
     private Map<String, TreeValueOperator> registeredTreeValueOperators;
+    /**
+     * The map of double kernels for unary operators registered by the plugins.
+     */
+    private Map<String, DoubleUnaryOperator> registeredUnaryOperatorKernels;
+    /**
+     * The map of double kernels for binary operators registered by the plugins.
+     */
+    private Map<String, DoubleBinaryOperator> registeredBinaryOperatorKernels;
+    /**
+     * The map of double kernels for single argument functions registered by the plugins.
+     */
+    private Map<String, DoubleUnaryOperator> registeredUnaryFunctionKernels;
+    /**
+     * The map of double kernels for two argument functions registered by the plugins.
+     */
+    private Map<String, DoubleBinaryOperator> registeredBinaryFunctionKernels;
     /**
      * The map of number implementations registered by the plugins.
      */
@@ -69,6 +87,11 @@ public class PluginManager {
      * The list of plugin listeners attached to this instance.
      */
     private Set<PluginListener> listeners;
+    /**
+     * The number of times the registered operators and functions have changed,
+     * used to tell whether operators and functions linked into trees are still valid.
+     */
+    private int registryVersion;
     /**
      * The abacus instance used to access other
      * components of the application.
@@ -88,6 +111,10 @@ public class PluginManager {
         registeredTreeValueFunctions = new HashMap<>();
         registeredOperators = new HashMap<>();
         registeredTreeValueOperators = new HashMap<>();
+        registeredUnaryOperatorKernels = new HashMap<>();
+        registeredBinaryOperatorKernels = new HashMap<>();
+        registeredUnaryFunctionKernels = new HashMap<>();
+        registeredBinaryFunctionKernels = new HashMap<>();
         registeredNumberImplementations = new HashMap<>();
         registeredDocumentation = new HashSet<>();
         interfaceImplementations = new HashMap<>();
@@ -96,6 +123,16 @@ public class PluginManager {
         listeners = new HashSet<>();
     }
 
+    /**
+     * Gets the version of the registered operators and functions, which
+     * changes every time an operator or function is registered or the plugins are unloaded.
+     *
+     * @return the registry version.
+     */
+    public int getRegistryVersion() {
+        return registryVersion;
+    }
+
     /**
      * Registers a function under the given name.
      *
@@ -104,6 +141,7 @@ public class PluginManager {
      */
     public void registerFunction(String name, NumberFunction function) {
         registeredFunctions.put(name, function);
+        registryVersion++;
     }
 
     /**
@@ -114,6 +152,7 @@ public class PluginManager {
      */
     public void registerTreeValueFunction(String name, TreeValueFunction function) {
         registeredTreeValueFunctions.put(name, function);
+        registryVersion++;
     }
 
     /**
@@ -124,6 +163,7 @@ public class PluginManager {
      */
     public void registerOperator(String name, NumberOperator operator) {
         registeredOperators.put(name, operator);
+        registryVersion++;
     }
 
     /**
@@ -134,6 +174,51 @@ public class PluginManager {
      */
     public void registerTreeValueOperator(String name, TreeValueOperator operator) {
         registeredTreeValueOperators.put(name, operator);
+        registryVersion++;
+    }
+
+    /**
+     * Registers a double kernel for the unary operator with the given name.
+     *
+     * @param name   the name of the operator.
+     * @param kernel the kernel, which returns NaN for arguments outside the operator's domain.
+     */
+    public void registerOperatorKernel(String name, DoubleUnaryOperator kernel) {
+        registeredUnaryOperatorKernels.put(name, kernel);
+        registryVersion++;
+    }
+
+    /**
+     * Registers a double kernel for the binary operator with the given name.
+     *
+     * @param name   the name of the operator.
+     * @param kernel the kernel, which returns NaN for arguments outside the operator's domain.
+     */
+    public void registerOperatorKernel(String name, DoubleBinaryOperator kernel) {
+        registeredBinaryOperatorKernels.put(name, kernel);
+        registryVersion++;
+    }
+
+    /**
+     * Registers a double kernel for the single argument function with the given name.
+     *
+     * @param name   the name of the function.
+     * @param kernel the kernel, which returns NaN for arguments outside the function's domain.
+     */
+    public void registerFunctionKernel(String name, DoubleUnaryOperator kernel) {
+        registeredUnaryFunctionKernels.put(name, kernel);
+        registryVersion++;
+    }
+
+    /**
+     * Registers a double kernel for the two argument function with the given name.
+     *
+     * @param name   the name of the function.
+     * @param kernel the kernel, which returns NaN for arguments outside the function's domain.
+     */
+    public void registerFunctionKernel(String name, DoubleBinaryOperator kernel) {
+        registeredBinaryFunctionKernels.put(name, kernel);
+        registryVersion++;
     }
 
     /**
@@ -199,6 +284,46 @@ public class PluginManager {
         return registeredTreeValueOperators.get(name);
     }
 
+    /**
+     * Gets the double kernel of the unary operator with the given name.
+     *
+     * @param name the name of the operator.
+     * @return the kernel, or null if it was not found.
+     */
+    public DoubleUnaryOperator unaryOperatorKernelFor(String name) {
+        return registeredUnaryOperatorKernels.get(name);
+    }
+
+    /**
+     * Gets the double kernel of the binary operator with the given name.
+     *
+     * @param name the name of the operator.
+     * @return the kernel, or null if it was not found.
+     */
+    public DoubleBinaryOperator binaryOperatorKernelFor(String name) {
+        return registeredBinaryOperatorKernels.get(name);
+    }
+
+    /**
+     * Gets the double kernel of the single argument function with the given name.
+     *
+     * @param name the name of the function.
+     * @return the kernel, or null if it was not found.
+     */
+    public DoubleUnaryOperator unaryFunctionKernelFor(String name) {
+        return registeredUnaryFunctionKernels.get(name);
+    }
+
+    /**
+     * Gets the double kernel of the two argument function with the given name.
+     *
+     * @param name the name of the function.
+     * @return the kernel, or null if it was not found.
+     */
+    public DoubleBinaryOperator binaryFunctionKernelFor(String name) {
+        return registeredBinaryFunctionKernels.get(name);
+    }
+
     /**
      * Gets the number implementation registered under the given name.
      *
@@ -328,11 +453,16 @@ public class PluginManager {
         registeredTreeValueFunctions.clear();
         registeredOperators.clear();
         registeredTreeValueOperators.clear();
+        registeredUnaryOperatorKernels.clear();
+        registeredBinaryOperatorKernels.clear();
+        registeredUnaryFunctionKernels.clear();
+        registeredBinaryFunctionKernels.clear();
         registeredNumberImplementations.clear();
         registeredDocumentation.clear();
         interfaceImplementationNames.clear();
         interfaceImplementations.clear();
         cachedPi.clear();
+        registryVersion++;
         listeners.forEach(e -> e.onUnload(this));
     }
 
@@ -0,0 +1,83 @@
+package org.nwapw.abacus.plugin.standard;
+
+import org.nwapw.abacus.context.MutableEvaluationContext;
+import org.nwapw.abacus.number.NumberInterface;
+import org.nwapw.abacus.number.standard.PreciseNumber;
+import org.nwapw.abacus.number.standard.Precision;
+import org.nwapw.abacus.plugin.NumberImplementation;
+
+/**
+ * The implementation for the infinite-precision BigDecimal, creating
+ * numbers with a given precision.
+ */
+class PreciseImplementation extends NumberImplementation {
+
+    /**
+     * The precision of the numbers created by this implementation, or null
+     * if they take on the precision of the numbers they are used with.
+     */
+    private final Precision precision;
+    /**
+     * The value of pi with this implementation's precision, or null if it hasn't been computed yet.
+     */
+    private volatile NumberInterface pi;
+
+    /**
+     * Creates a new implementation for numbers of the given precision.
+     *
+     * @param precision the precision of the numbers, or null to use that of the numbers they are used with.
+     */
+    PreciseImplementation(Precision precision) {
+        super(PreciseNumber.class, 0);
+        this.precision = precision;
+    }
+
+    @Override
+    public NumberInterface instanceForString(String string) {
+        return new PreciseNumber(string, precision);
+    }
+
+    @Override
+    public NumberInterface instanceForPi() {
+        NumberInterface current = pi;
+        if (current == null) {
+            current = computePi();
+            pi = current;
+        }
+        return current;
+    }
+
+    /**
+     * Computes pi using the Chudnovsky algorithm, to this implementation's precision.
+     *
+     * @return pi.
+     */
+    private NumberInterface computePi() {
+        MutableEvaluationContext dummyContext = new MutableEvaluationContext(null, this, null);
+        NumberInterface C = StandardPlugin.FUNCTION_SQRT.apply(dummyContext, instanceForString("10005"))
+                .multiply(instanceForString("426880"));
+        NumberInterface M = instanceForString("1");
+        NumberInterface L = instanceForString("13591409");
+        NumberInterface X = M;
+        NumberInterface sum = L;
+        int termsNeeded = C.getMaxPrecision() / 13 + 1;
+
+        NumberInterface lSummand = instanceForString("545140134");
+        NumberInterface xMultiplier = instanceForString("262537412")
+                .multiply(instanceForString("1000000000"))
+                .add(instanceForString("640768000"))
+                .negate();
+        for (int i = 0; i < termsNeeded; i++) {
+            M = M
+                    .multiply(instanceForString((12 * i + 2) + ""))
+                    .multiply(instanceForString((12 * i + 6) + ""))
+                    .multiply(instanceForString((12 * i + 10) + ""))
+                    .divide(instanceForString(Math.pow(i + 1, 3) + ""));
+            L = L.add(lSummand);
+            X = X.multiply(xMultiplier);
+            sum = sum.add(M.multiply(L).divide(X));
+        }
+        return C.divide(sum);
+    }
+
+}
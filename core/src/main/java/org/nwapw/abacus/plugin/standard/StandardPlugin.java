@@ -1,7 +1,6 @@
 package org.nwapw.abacus.plugin.standard;
 
 import org.jetbrains.annotations.NotNull;
-import org.nwapw.abacus.context.MutableEvaluationContext;
 import org.nwapw.abacus.context.PluginEvaluationContext;
 import org.nwapw.abacus.function.Documentation;
 import org.nwapw.abacus.function.DocumentationType;
@@ -11,13 +10,18 @@ import org.nwapw.abacus.function.interfaces.TreeValueOperator;
 import org.nwapw.abacus.number.NumberInterface;
 import org.nwapw.abacus.number.standard.NaiveNumber;
 import org.nwapw.abacus.number.standard.PreciseNumber;
+import org.nwapw.abacus.number.standard.Precision;
+import org.nwapw.abacus.number.standard.RationalNumber;
 import org.nwapw.abacus.plugin.NumberImplementation;
 import org.nwapw.abacus.plugin.Plugin;
 import org.nwapw.abacus.plugin.PluginManager;
 import org.nwapw.abacus.plugin.standard.operator.*;
 
+import java.math.MathContext;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * The plugin providing standard functions such as addition and subtraction to
@@ -66,40 +70,45 @@ public class StandardPlugin extends Plugin {
     /**
      * The implementation for the infinite-precision BigDecimal.
      */
-    public static final NumberImplementation IMPLEMENTATION_PRECISE = new NumberImplementation(PreciseNumber.class, 0) {
+    public static final NumberImplementation IMPLEMENTATION_PRECISE = new PreciseImplementation(null);
+    /**
+     * The implementation for exact fractions, which are promoted to BigDecimals or doubles
+     * when used together with them.
+     */
+    public static final NumberImplementation IMPLEMENTATION_RATIONAL = new NumberImplementation(RationalNumber.class, -1) {
+        {
+            getPromotionPaths().put("precise", number -> new PreciseNumber(
+                    ((RationalNumber) number).toBigDecimal(Precision.DEFAULT.getInternalContext())));
+            getPromotionPaths().put("naive", number -> new NaiveNumber(
+                    ((RationalNumber) number).toBigDecimal(MathContext.DECIMAL64).doubleValue()));
+        }
+
         @Override
         public NumberInterface instanceForString(String string) {
-            return new PreciseNumber(string);
+            return new RationalNumber(string);
         }
 
         @Override
         public NumberInterface instanceForPi() {
-            MutableEvaluationContext dummyContext = new MutableEvaluationContext(null, this, null);
-            NumberInterface C = FUNCTION_SQRT.apply(dummyContext, new PreciseNumber("10005")).multiply(new PreciseNumber("426880"));
-            NumberInterface M = PreciseNumber.ONE;
-            NumberInterface L = new PreciseNumber("13591409");
-            NumberInterface X = M;
-            NumberInterface sum = L;
-            int termsNeeded = C.getMaxPrecision() / 13 + 1;
-
-            NumberInterface lSummand = new PreciseNumber("545140134");
-            NumberInterface xMultiplier = new PreciseNumber("262537412")
-                    .multiply(new PreciseNumber("1000000000"))
-                    .add(new PreciseNumber("640768000"))
-                    .negate();
-            for (int i = 0; i < termsNeeded; i++) {
-                M = M
-                        .multiply(new PreciseNumber((12 * i + 2) + ""))
-                        .multiply(new PreciseNumber((12 * i + 6) + ""))
-                        .multiply(new PreciseNumber((12 * i + 10) + ""))
-                        .divide(new PreciseNumber(Math.pow(i + 1, 3) + ""));
-                L = L.add(lSummand);
-                X = X.multiply(xMultiplier);
-                sum = sum.add(M.multiply(L).divide(X));
-            }
-            return C.divide(sum);
+            return new RationalNumber(((PreciseNumber) IMPLEMENTATION_PRECISE.instanceForPi()).getValue());
         }
     };
+    /**
+     * The maximum number of implementations for BigDecimals of a fixed precision that are kept.
+     */
+    private static final int MAX_PRECISE_IMPLEMENTATIONS = 64;
+    /**
+     * The implementations for BigDecimals of a fixed precision, by their precision, in order
+     * from least to most recently used. Only the most recently used ones are kept, so that
+     * using many different precisions doesn't keep every one of them and its value of pi around.
+     */
+    private static final Map<Precision, NumberImplementation> PRECISE_IMPLEMENTATIONS =
+            new LinkedHashMap<Precision, NumberImplementation>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Precision, NumberImplementation> eldest) {
+                    return size() > MAX_PRECISE_IMPLEMENTATIONS;
+                }
+            };
     /**
      * The division operator, /
      */
@@ -119,7 +128,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The absolute value function, abs(-3) = 3
      */
-    public static final NumberFunction FUNCTION_ABS = new NumberFunction() {
+    public static final NumberFunction FUNCTION_ABS = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -133,7 +142,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The natural log function.
      */
-    public static final NumberFunction FUNCTION_LN = new NumberFunction() {
+    public static final NumberFunction FUNCTION_LN = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1 && params[0].compareTo(context.getInheritedNumberImplementation().instanceForString("0")) > 0;
@@ -216,7 +225,7 @@ public class StandardPlugin extends Plugin {
     /**
      * Gets a random number smaller or equal to the given number's integer value.
      */
-    public static final NumberFunction FUNCTION_RAND_INT = new NumberFunction() {
+    public static final NumberFunction FUNCTION_RAND_INT = new NumberFunction(false) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -234,7 +243,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The square root function.
      */
-    public static final NumberFunction FUNCTION_SQRT = new NumberFunction() {
+    public static final NumberFunction FUNCTION_SQRT = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -245,11 +254,15 @@ public class StandardPlugin extends Plugin {
             return OP_CARET.apply(context, params[0], context.getInheritedNumberImplementation().instanceForString(".5"));
         }
     };
-    private static final HashMap<NumberImplementation, ArrayList<NumberInterface>> FACTORIAL_LISTS = new HashMap<>();
+    /**
+     * The factorials computed so far, by the implementation they were computed with. Implementations
+     * that are no longer used, such as those of precisions that were dropped, are forgotten along with their lists.
+     */
+    private static final Map<NumberImplementation, ArrayList<NumberInterface>> FACTORIAL_LISTS = new WeakHashMap<>();
     /**
      * The exponential function, exp(1) = e^1 = 2.71...
      */
-    public static final NumberFunction FUNCTION_EXP = new NumberFunction() {
+    public static final NumberFunction FUNCTION_EXP = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -287,7 +300,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The sine function (the argument is interpreted in radians).
      */
-    public final NumberFunction functionSin = new NumberFunction() {
+    public final NumberFunction functionSin = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -296,7 +309,7 @@ public class StandardPlugin extends Plugin {
         @Override
         public NumberInterface applyInternal(PluginEvaluationContext context, NumberInterface[] params) {
             NumberImplementation implementation = context.getInheritedNumberImplementation();
-            NumberInterface pi = piFor(params[0].getClass());
+            NumberInterface pi = piFor(params[0]);
             NumberInterface twoPi = pi.multiply(implementation.instanceForString("2"));
             NumberInterface theta = getSmallAngle(context, params[0], pi);
             //System.out.println(theta);
@@ -312,7 +325,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The cosine function (the argument is in radians).
      */
-    public final NumberFunction functionCos = new NumberFunction() {
+    public final NumberFunction functionCos = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -320,14 +333,14 @@ public class StandardPlugin extends Plugin {
 
         @Override
         public NumberInterface applyInternal(PluginEvaluationContext context, NumberInterface[] params) {
-            return functionSin.apply(context, piFor(params[0].getClass()).divide(context.getInheritedNumberImplementation().instanceForString("2"))
+            return functionSin.apply(context, piFor(params[0]).divide(context.getInheritedNumberImplementation().instanceForString("2"))
                     .subtract(params[0]));
         }
     };
     /**
      * The tangent function (the argument is in radians).
      */
-    public final NumberFunction functionTan = new NumberFunction() {
+    public final NumberFunction functionTan = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -341,7 +354,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The secant function (the argument is in radians).
      */
-    public final NumberFunction functionSec = new NumberFunction() {
+    public final NumberFunction functionSec = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -355,7 +368,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The cosecant function (the argument is in radians).
      */
-    public final NumberFunction functionCsc = new NumberFunction() {
+    public final NumberFunction functionCsc = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -369,7 +382,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The cotangent function (the argument is in radians).
      */
-    public final NumberFunction functionCot = new NumberFunction() {
+    public final NumberFunction functionCot = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -384,7 +397,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The arcsine function (return type in radians).
      */
-    public final NumberFunction functionArcsin = new NumberFunction() {
+    public final NumberFunction functionArcsin = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1
@@ -396,7 +409,7 @@ public class StandardPlugin extends Plugin {
             NumberImplementation implementation = context.getInheritedNumberImplementation();
             if (FUNCTION_ABS.apply(context, params[0]).compareTo(implementation.instanceForString(".8")) >= 0) {
                 NumberInterface[] newParams = {FUNCTION_SQRT.apply(context, implementation.instanceForString("1").subtract(params[0].multiply(params[0])))};
-                return piFor(params[0].getClass()).divide(implementation.instanceForString("2"))
+                return piFor(params[0]).divide(implementation.instanceForString("2"))
                         .subtract(applyInternal(context, newParams)).multiply(implementation.instanceForString(Integer.toString(params[0].signum())));
             }
             NumberInterface currentTerm = params[0], sum = currentTerm,
@@ -418,7 +431,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The arccosine function.
      */
-    public final NumberFunction functionArccos = new NumberFunction() {
+    public final NumberFunction functionArccos = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1 && FUNCTION_ABS.apply(context, params[0]).compareTo(context.getInheritedNumberImplementation().instanceForString("1")) <= 0;
@@ -426,7 +439,7 @@ public class StandardPlugin extends Plugin {
 
         @Override
         public NumberInterface applyInternal(PluginEvaluationContext context, NumberInterface[] params) {
-            return piFor(params[0].getClass()).divide(context.getInheritedNumberImplementation().instanceForString("2"))
+            return piFor(params[0]).divide(context.getInheritedNumberImplementation().instanceForString("2"))
                     .subtract(functionArcsin.apply(context, params));
         }
     };
@@ -434,7 +447,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The arccosecant function.
      */
-    public final NumberFunction functionArccsc = new NumberFunction() {
+    public final NumberFunction functionArccsc = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1 && FUNCTION_ABS.apply(context, params[0]).compareTo(context.getInheritedNumberImplementation().instanceForString("1")) >= 0;
@@ -450,7 +463,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The arcsecant function.
      */
-    public final NumberFunction functionArcsec = new NumberFunction() {
+    public final NumberFunction functionArcsec = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1 && FUNCTION_ABS.apply(context, params[0]).compareTo(context.getInheritedNumberImplementation().instanceForString("1")) >= 0;
@@ -466,7 +479,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The arctangent function.
      */
-    public final NumberFunction functionArctan = new NumberFunction() {
+    public final NumberFunction functionArctan = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -481,11 +494,11 @@ public class StandardPlugin extends Plugin {
             }
             if (params[0].compareTo(implementation.instanceForString("1")) > 0) {
                 NumberInterface[] reciprocalParams = {implementation.instanceForString("1").divide(params[0])};
-                return piFor(params[0].getClass()).divide(implementation.instanceForString("2"))
+                return piFor(params[0]).divide(implementation.instanceForString("2"))
                         .subtract(applyInternal(context, reciprocalParams));
             }
             if (params[0].compareTo(implementation.instanceForString("1")) == 0) {
-                return piFor(params[0].getClass()).divide(implementation.instanceForString("4"));
+                return piFor(params[0]).divide(implementation.instanceForString("4"));
             }
             if (params[0].compareTo(implementation.instanceForString(".9")) >= 0) {
                 NumberInterface[] newParams = {params[0].multiply(implementation.instanceForString("2"))
@@ -508,7 +521,7 @@ public class StandardPlugin extends Plugin {
     /**
      * The arccotangent function. Range: (0, pi).
      */
-    public final NumberFunction functionArccot = new NumberFunction() {
+    public final NumberFunction functionArccot = new NumberFunction(true) {
         @Override
         public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
             return params.length == 1;
@@ -516,7 +529,7 @@ public class StandardPlugin extends Plugin {
 
         @Override
         public NumberInterface applyInternal(PluginEvaluationContext context, NumberInterface[] params) {
-            return piFor(params[0].getClass()).divide(context.getInheritedNumberImplementation().instanceForString("2"))
+            return piFor(params[0]).divide(context.getInheritedNumberImplementation().instanceForString("2"))
                     .subtract(functionArctan.apply(context, params));
         }
     };
@@ -567,6 +580,78 @@ public class StandardPlugin extends Plugin {
         return sum;
     }
 
+    /**
+     * The double kernel of the caret operator, which is NaN
+     * wherever the operator isn't defined.
+     *
+     * @param base     the base.
+     * @param exponent the exponent.
+     * @return the base brought to the exponent, or NaN.
+     */
+    private static double caretKernel(double base, double exponent) {
+        if (base == 0 && exponent == 0) return Double.NaN;
+        if (base < 0 && exponent != Math.floor(exponent)) return Double.NaN;
+        return Math.pow(base, exponent);
+    }
+
+    /**
+     * The double kernel of the factorial operator, which is NaN
+     * for anything but non-negative integers.
+     *
+     * @param value the value to find the factorial of.
+     * @return the factorial, or NaN.
+     */
+    private static double factorialKernel(double value) {
+        if (value < 0 || value != Math.floor(value)) return Double.NaN;
+        double factorial = 1;
+        for (int i = 2; i <= value && !Double.isInfinite(factorial); i++) {
+            factorial *= i;
+        }
+        return factorial;
+    }
+
+    /**
+     * Gets the implementation for BigDecimals with the given precision. The numbers created
+     * by the implementation, and the results of calculations with them, are computed and
+     * output with that many digits. The implementations of the most recently used precisions are
+     * kept, so that their values of pi are only computed once.
+     * Numbers created by {@link #IMPLEMENTATION_PRECISE} take on the precision of the numbers
+     * they are used with.
+     *
+     * @param digits the number of significant digits to output.
+     * @return the implementation.
+     */
+    public static NumberImplementation preciseImplementationFor(int digits) {
+        return preciseImplementationFor(new Precision(digits));
+    }
+
+    /**
+     * Gets the implementation for BigDecimals with the given precision, including its rounding policy,
+     * in the same way as {@link #preciseImplementationFor(int)}.
+     *
+     * @param precision the precision of the numbers.
+     * @return the implementation.
+     */
+    public static NumberImplementation preciseImplementationFor(Precision precision) {
+        synchronized (PRECISE_IMPLEMENTATIONS) {
+            return PRECISE_IMPLEMENTATIONS.computeIfAbsent(precision, PreciseImplementation::new);
+        }
+    }
+
+    /**
+     * Gets pi with the same implementation and precision as the given number.
+     *
+     * @param number the number.
+     * @return pi.
+     */
+    private NumberInterface piFor(NumberInterface number) {
+        if (number instanceof PreciseNumber) {
+            Precision precision = ((PreciseNumber) number).getPrecision();
+            if (precision != null) return preciseImplementationFor(precision).instanceForPi();
+        }
+        return piFor(number.getClass());
+    }
+
     /**
      * Returns an equivalent angle in the interval [0, 2pi)
      *
@@ -587,6 +672,7 @@ public class StandardPlugin extends Plugin {
     public void onEnable() {
         registerNumberImplementation("naive", IMPLEMENTATION_NAIVE);
         registerNumberImplementation("precise", IMPLEMENTATION_PRECISE);
+        registerNumberImplementation("rational", IMPLEMENTATION_RATIONAL);
 
         registerOperator("+", OP_ADD);
         registerOperator("-", OP_SUBTRACT);
@@ -623,6 +709,33 @@ public class StandardPlugin extends Plugin {
 
         registerFunction("random_int", FUNCTION_RAND_INT);
 
+        registerOperatorKernel("+", (left, right) -> left + right);
+        registerOperatorKernel("-", (left, right) -> left - right);
+        registerOperatorKernel("`", value -> -value);
+        registerOperatorKernel("*", (left, right) -> left * right);
+        registerOperatorKernel("/", (left, right) -> left / right);
+        registerOperatorKernel("^", StandardPlugin::caretKernel);
+        registerOperatorKernel("!", StandardPlugin::factorialKernel);
+
+        registerFunctionKernel("abs", Math::abs);
+        registerFunctionKernel("exp", Math::exp);
+        registerFunctionKernel("ln", value -> value > 0 ? Math.log(value) : Double.NaN);
+        registerFunctionKernel("sqrt", value -> value >= 0 ? Math.sqrt(value) : Double.NaN);
+
+        registerFunctionKernel("sin", Math::sin);
+        registerFunctionKernel("cos", Math::cos);
+        registerFunctionKernel("tan", Math::tan);
+        registerFunctionKernel("sec", value -> 1 / Math.cos(value));
+        registerFunctionKernel("csc", value -> 1 / Math.sin(value));
+        registerFunctionKernel("cot", value -> Math.cos(value) / Math.sin(value));
+
+        registerFunctionKernel("arcsin", Math::asin);
+        registerFunctionKernel("arccos", Math::acos);
+        registerFunctionKernel("arctan", Math::atan);
+        registerFunctionKernel("arcsec", value -> Math.acos(1 / value));
+        registerFunctionKernel("arccsc", value -> Math.asin(1 / value));
+        registerFunctionKernel("arccot", value -> Math.PI / 2 - Math.atan(value));
+
         registerDocumentation(new Documentation("abs", "Absolute Value", "Finds the distance " +
                 "from zero of a number.", "Given a number, this function finds the distance form " +
                 "zero of a number, effectively turning negative numbers into positive ones.\n\n" +
@@ -3,12 +3,26 @@ package org.nwapw.abacus
 import org.nwapw.abacus.config.Configuration
 import org.nwapw.abacus.context.EvaluationContext
 import org.nwapw.abacus.context.MutableEvaluationContext
+import org.nwapw.abacus.exception.ReductionException
 import org.nwapw.abacus.number.promotion.PromotionManager
+import org.nwapw.abacus.number.standard.NaiveNumber
+import org.nwapw.abacus.lexing.Match
+import org.nwapw.abacus.parsing.Parser
 import org.nwapw.abacus.parsing.TreeBuilder
 import org.nwapw.abacus.parsing.standard.LexerTokenizer
 import org.nwapw.abacus.parsing.standard.ShuntingYardParser
+import org.nwapw.abacus.parsing.standard.TokenType
+import org.nwapw.abacus.plugin.PluginListener
 import org.nwapw.abacus.plugin.PluginManager
 import org.nwapw.abacus.plugin.standard.StandardPlugin
+import org.nwapw.abacus.tree.CompiledExpression
+import org.nwapw.abacus.tree.DagEvaluator
+import org.nwapw.abacus.tree.DoubleEvaluator
+import org.nwapw.abacus.tree.ProgramCompiler
+import org.nwapw.abacus.tree.TreeInterner
+import org.nwapw.abacus.tree.TreeLinker
+import org.nwapw.abacus.tree.TreeOptimizer
+import org.nwapw.abacus.tree.TreeProgram
 import org.nwapw.abacus.tree.nodes.TreeNode
 
 /**
@@ -19,17 +33,16 @@ import org.nwapw.abacus.tree.nodes.TreeNode
  * their interaction with each other.
  *
  * @property configuration the configuration to use.
+ * @param parser the parser used to convert tokens into trees. If it is also a [PluginListener],
+ * it is notified when plugins are loaded and unloaded.
  */
-class Abacus(val configuration: Configuration) {
+class Abacus @JvmOverloads constructor(val configuration: Configuration,
+                                       private val parser: Parser<Match<TokenType>> = ShuntingYardParser()) {
 
     /**
      * The tokenizer used to convert strings into tokens.
      */
     private val tokenizer = LexerTokenizer()
-    /**
-     * Parser the parser used to convert tokens into trees.
-     */
-    private val parser = ShuntingYardParser()
     /**
      * The plugin manager used to handle loading and unloading plugins.
      */
@@ -43,6 +56,11 @@ class Abacus(val configuration: Configuration) {
      */
     val promotionManager = PromotionManager(this)
 
+    /**
+     * The evaluator used by [evaluateTreeFast] to evaluate trees using doubles when the naive implementation is in use.
+     */
+    private val doubleEvaluator = DoubleEvaluator(pluginManager)
+
     /**
      * The hidden, mutable implementation of the context.
      */
@@ -55,8 +73,11 @@ class Abacus(val configuration: Configuration) {
 
     init {
         pluginManager.addListener(tokenizer)
-        pluginManager.addListener(parser)
+        if (parser is PluginListener) pluginManager.addListener(parser)
         pluginManager.addListener(promotionManager)
+        // The tree cache is cleared last, once the tokenizer and parser have been updated,
+        // so that trees parsed in the middle of a reload aren't cached.
+        pluginManager.addListener(treeBuilder)
     }
 
     /**
@@ -87,6 +108,53 @@ class Abacus(val configuration: Configuration) {
      * @return the resulting tree, null if the tree builder or the produced tree are null.
      */
     fun parseString(input: String): TreeNode = treeBuilder.fromString(input)
+    /**
+     * Simplifies the given tree, evaluating constant subtrees ahead of time using
+     * the current number implementation.
+     *
+     * @param tree the tree to optimize.
+     * @return the optimized tree, which evaluates to the same value.
+     */
+    fun optimizeTree(tree: TreeNode): TreeNode = TreeOptimizer(this).optimize(tree)
+
+    /**
+     * Shares the equal subtrees of the given tree, so that each of them is
+     * only evaluated once by [evaluateSharedTree].
+     *
+     * @param tree the tree whose subtrees to share.
+     * @return the tree, with every set of equal subtrees replaced by a single node.
+     */
+    fun shareSubtrees(tree: TreeNode): TreeNode = TreeInterner().intern(tree)
+
+    /**
+     * Links the given tree to the currently registered operators and functions,
+     * so that they don't have to be looked up by name every time it is evaluated.
+     * The tree is looked up by name again if the plugins change after linking.
+     *
+     * @param tree the tree to link.
+     * @return the linked tree, which evaluates the same as the given one.
+     */
+    fun linkTree(tree: TreeNode): TreeNode = TreeLinker(pluginManager).link(tree)
+
+    /**
+     * Compiles the given tree for repeated evaluation with different variable values.
+     *
+     * @param tree the tree to compile.
+     * @param variables the names of the variables whose values are passed in when evaluating.
+     * @return the compiled expression.
+     */
+    fun compileTree(tree: TreeNode, vararg variables: String): CompiledExpression =
+            CompiledExpression(this, tree, variables.toList())
+
+    /**
+     * Flattens the given tree into a program, which is bound to the currently
+     * registered operators and functions.
+     *
+     * @param tree the tree to compile.
+     * @return the compiled program.
+     */
+    fun compileProgram(tree: TreeNode): TreeProgram = ProgramCompiler(pluginManager).compile(tree)
+
     /**
      * Evaluates the given tree.
      *
@@ -105,8 +173,88 @@ class Abacus(val configuration: Configuration) {
      * @return the evaluation result.
      */
     fun evaluateTreeWithContext(tree: TreeNode, context: MutableEvaluationContext): EvaluationResult {
-        val evaluationValue = tree.reduce(context)
+        val evaluationValue = tree.reduceIterative(context)
         return EvaluationResult(evaluationValue, context)
     }
 
+    /**
+     * Evaluates the given tree, using primitive doubles instead of numbers when the naive
+     * implementation is in use and every operator and function in the tree has a double kernel.
+     * This is faster, but the kernels may round differently from the naive number operators,
+     * so the last digits of the result can differ from those given by [evaluateTree].
+     *
+     * @param tree the tree to reduce, must not be null.
+     * @return the evaluation result.
+     */
+    fun evaluateTreeFast(tree: TreeNode): EvaluationResult {
+        return evaluateTreeFastWithContext(tree, context.mutableSubInstance())
+    }
+
+    /**
+     * Evaluates the given tree using a different context than the default one,
+     * using primitive doubles where possible, like [evaluateTreeFast]. Whether the tree
+     * can be evaluated using doubles is checked before evaluating it, so trees that can't
+     * are only evaluated once; only an argument outside a kernel's domain makes the tree
+     * be evaluated again as usual, which then reports the error.
+     *
+     * @param tree the tree to reduce, must not be null.
+     * @param context the context to use for the evaluation.
+     * @return the evaluation result.
+     */
+    fun evaluateTreeFastWithContext(tree: TreeNode, context: MutableEvaluationContext): EvaluationResult {
+        if(context.inheritedNumberImplementation === StandardPlugin.IMPLEMENTATION_NAIVE &&
+                doubleEvaluator.canEvaluate(tree, context)) {
+            val doubleValue = doubleEvaluator.evaluate(tree, context)
+            if(!doubleValue.isNaN()) return EvaluationResult(NaiveNumber(doubleValue), context)
+        }
+        return evaluateTreeWithContext(tree, context)
+    }
+
+    /**
+     * Evaluates the given tree, evaluating every node that appears
+     * in it more than once only a single time.
+     *
+     * @param tree the tree to reduce, usually with shared subtrees.
+     * @return the evaluation result.
+     */
+    fun evaluateSharedTree(tree: TreeNode): EvaluationResult {
+        return evaluateSharedTreeWithContext(tree, context.mutableSubInstance())
+    }
+
+    /**
+     * Evaluates the given tree using a different context than the default one,
+     * evaluating every node that appears in it more than once only a single time.
+     *
+     * @param tree the tree to reduce, usually with shared subtrees.
+     * @param context the context to use for the evaluation.
+     * @return the evaluation result.
+     */
+    fun evaluateSharedTreeWithContext(tree: TreeNode, context: MutableEvaluationContext): EvaluationResult {
+        return EvaluationResult(DagEvaluator(context).evaluate(tree), context)
+    }
+
+    /**
+     * Evaluates the given program.
+     *
+     * @param program the program to evaluate.
+     * @return the evaluation result.
+     */
+    fun evaluateProgram(program: TreeProgram): EvaluationResult {
+        return evaluateProgramWithContext(program, context.mutableSubInstance())
+    }
+
+    /**
+     * Evaluates the given program using a different context than
+     * the default one.
+     *
+     * @param program the program to evaluate.
+     * @param context the context to use for the evaluation.
+     * @return the evaluation result.
+     */
+    fun evaluateProgramWithContext(program: TreeProgram, context: MutableEvaluationContext): EvaluationResult {
+        if(program.registryVersion != pluginManager.registryVersion)
+            throw ReductionException("program was compiled with different plugins.")
+        return EvaluationResult(program.evaluate(this, context), context)
+    }
+
 }
\ No newline at end of file
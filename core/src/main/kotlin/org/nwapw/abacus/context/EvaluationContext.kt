@@ -4,13 +4,15 @@ import org.nwapw.abacus.Abacus
 import org.nwapw.abacus.number.NumberInterface
 import org.nwapw.abacus.plugin.NumberImplementation
 import org.nwapw.abacus.tree.Reducer
-import org.nwapw.abacus.tree.nodes.TreeNode
+import org.nwapw.abacus.tree.nodes.*
 
 /**
  * A context for the reduction of a [org.nwapw.abacus.tree.TreeNode] into a number.
  *
  * The reduction context is used to carry important state information captured at the beginning
  * of the reduction of an expression, such as the variables and the implementation in use.
+ * A context starts out with the variables and definitions its parent has when it is created,
+ * and later changes to the parent's variables and definitions are not visible in it.
  *
  * @property parent the parent of this context.
  * @property numberImplementation the implementation for numbers of this context.
@@ -21,25 +23,84 @@ abstract class EvaluationContext(val parent: EvaluationContext? = null,
                                  open val abacus: Abacus? = null): Reducer<NumberInterface> {
 
     /**
-     * The map of variables in this context.
+     * The map of variables visible in this context. It starts out as the map of the parent,
+     * which is shared rather than copied, and is replaced whenever a variable is set.
      */
-    protected val variableMap = mutableMapOf<String, NumberInterface>()
+    protected var variableMap: PersistentMap<String, NumberInterface> = parent?.variableMap ?: PersistentMap()
     /**
-     * The map of definitions in this context.
+     * The map of definitions visible in this context, shared with the parent in the same way as the variables.
      */
-    protected val definitionMap = mutableMapOf<String, TreeNode>()
+    protected var definitionMap: PersistentMap<String, TreeNode> = parent?.definitionMap ?: PersistentMap()
+    /**
+     * The map of the names each visible definition refers to.
+     */
+    protected var dependencyMap: PersistentMap<String, Set<String>> = parent?.dependencyMap ?: PersistentMap()
+    /**
+     * The map of the definitions that refer to each name, the reverse of [dependencyMap].
+     */
+    protected var dependentMap: PersistentMap<String, Set<String>> = parent?.dependentMap ?: PersistentMap()
+    /**
+     * The map of whether the operators and functions used by each visible definition are pure.
+     */
+    protected var localPurityMap: PersistentMap<String, Boolean> = parent?.localPurityMap ?: PersistentMap()
+    /**
+     * The map of whether each visible definition is pure, that is, whether its own operators and functions
+     * and every definition it refers to are pure. It is kept up to date as definitions are set, so that
+     * purity doesn't need to be worked out during evaluation.
+     */
+    protected var purityMap: PersistentMap<String, Boolean> = parent?.purityMap ?: PersistentMap()
+    /**
+     * The map of definition values that have already been computed. Values are cached in the
+     * context that computes them; a context created for a single evaluation, such as the one used by
+     * [Abacus.evaluateTree], hands its cached values back to its parent when it is applied to it,
+     * so that they are kept in the long-lived context from one evaluation to the next.
+     */
+    protected var definitionValueMap: PersistentMap<String, DefinitionValue> =
+            parent?.definitionValueMap ?: PersistentMap()
+    /**
+     * The map of variables this context started out with, which it goes back to when its variables are reset.
+     */
+    private val initialVariableMap = variableMap
+    /**
+     * The map of definitions this context started out with, which it goes back to when its definitions are reset.
+     */
+    private val initialDefinitionMap = definitionMap
+    /**
+     * The map of dependencies this context started out with.
+     */
+    private val initialDependencyMap = dependencyMap
+    /**
+     * The map of dependents this context started out with.
+     */
+    private val initialDependentMap = dependentMap
+    /**
+     * The map of local purities this context started out with.
+     */
+    private val initialLocalPurityMap = localPurityMap
+    /**
+     * The map of purities this context started out with.
+     */
+    private val initialPurityMap = purityMap
+    /**
+     * The names of the variables set in this context.
+     */
+    protected val variableNames = mutableSetOf<String>()
+    /**
+     * The names of the definitions set in this context.
+     */
+    protected val definitionNames = mutableSetOf<String>()
 
     /**
      * The set of all variable names defined in this context.
      */
     val variables: Set<String>
-        get() = variableMap.keys
+        get() = variableNames
 
     /**
      * The set of all definition names defined in this context.
      */
     val definitions: Set<String>
-        get() = definitionMap.keys
+        get() = definitionNames
 
     /**
      * The implementation inherited from this context's parent.
@@ -56,12 +117,14 @@ abstract class EvaluationContext(val parent: EvaluationContext? = null,
     /**
      * The set of all variables in this context and its parents.
      */
-    val inheritedVariables: Set<String> by ChainAccumulateDelegate { variables }
+    val inheritedVariables: Set<String>
+        get() = variableMap.keys
 
     /**
      * The set of all definition in this context and its parents.
      */
-    val inheritedDefinitions: Set<String> by ChainAccumulateDelegate { definitions }
+    val inheritedDefinitions: Set<String>
+        get() = definitionMap.keys
 
     /**
      * Create a new child instance of this context that is mutable.
@@ -73,13 +136,119 @@ abstract class EvaluationContext(val parent: EvaluationContext? = null,
      * Gets a variable stored in this context.
      */
     fun getVariable(name: String): NumberInterface? {
-        return variableMap[name] ?: parent?.getVariable(name)
+        return variableMap[name]
     }
     /**
      * Gets the definition stored in this context.
      */
     fun getDefinition(name: String): TreeNode? {
-        return definitionMap[name] ?: parent?.getDefinition(name)
+        return definitionMap[name]
+    }
+    /**
+     * Gets the names referred to by the definition stored in this context.
+     */
+    fun getDependencies(name: String): Set<String>? {
+        return dependencyMap[name]
     }
 
+    /**
+     * Checks whether this context was created from the given one, and the given
+     * context's variables and definitions haven't changed since.
+     * @param context the context to check.
+     * @return whether this context was forked from the context as it is now.
+     */
+    internal fun isForkOf(context: EvaluationContext) = parent === context &&
+            initialVariableMap === context.variableMap && initialDefinitionMap === context.definitionMap
+
+    /**
+     * Replaces the computed definition values of this context with those of the given context.
+     * @param context the context to take the values from.
+     */
+    protected fun takeDefinitionValues(context: EvaluationContext) {
+        definitionValueMap = context.definitionValueMap
+    }
+
+    /**
+     * Checks whether the given node always evaluates to the same value in this context, given the same
+     * reduced children. Numbers and variables are pure, and so are pure definitions.
+     * Operators and functions are pure if they are declared to be, while tree value operators and functions,
+     * which may change the context, never are.
+     * @param node the node to check.
+     * @return whether the node is pure.
+     */
+    fun isPureNode(node: TreeNode): Boolean {
+        if(node !is VariableNode) return isPureOperation(node)
+        return getVariable(node.variable) != null || isPureDefinition(node.variable)
+    }
+
+    /**
+     * Checks whether the definition with the given name always evaluates to the same value
+     * while the variables and definitions it refers to stay the same. A definition that refers
+     * to an impure definition is impure even if a variable hides that definition.
+     * @param name the name of the definition.
+     * @return whether the definition exists and is pure.
+     */
+    fun isPureDefinition(name: String) = purityMap[name] ?: false
+
+    /**
+     * Checks whether every operator and function in the given tree is pure, without following definitions.
+     * @param tree the tree to check.
+     * @return whether the tree's operators and functions are pure.
+     */
+    protected fun hasPureOperations(tree: TreeNode): Boolean {
+        val pending = mutableListOf(tree)
+        while(!pending.isEmpty()) {
+            val node = pending.removeAt(pending.size - 1)
+            if(node !is VariableNode && !isPureOperation(node)) return false
+            pending.addAll(node.subtrees)
+        }
+        return true
+    }
+
+    /**
+     * Checks whether the given node, which isn't a variable, is pure on its own.
+     * @param node the node to check.
+     * @return whether the node is pure.
+     */
+    private fun isPureOperation(node: TreeNode): Boolean {
+        val pluginManager = inheritedAbacus.pluginManager
+        return when(node) {
+            is NumberNode -> true
+            is NumberUnaryNode -> pluginManager.operatorFor(node.operation)?.isPure ?: false
+            is NumberBinaryNode -> pluginManager.operatorFor(node.operation)?.isPure ?: false
+            is NumberFunctionNode -> pluginManager.functionFor(node.callTo)?.isPure ?: false
+            else -> false
+        }
+    }
+
+    /**
+     * Forgets the variables set in this context, going back to those the parent had when this context was created.
+     */
+    protected fun resetVariables() {
+        variableMap = initialVariableMap
+        definitionValueMap = PersistentMap()
+        variableNames.clear()
+    }
+
+    /**
+     * Forgets the definitions set in this context, going back to those the parent had when this context was created.
+     */
+    protected fun resetDefinitions() {
+        definitionMap = initialDefinitionMap
+        dependencyMap = initialDependencyMap
+        dependentMap = initialDependentMap
+        localPurityMap = initialLocalPurityMap
+        purityMap = initialPurityMap
+        definitionValueMap = PersistentMap()
+        definitionNames.clear()
+    }
+
+    /**
+     * A value computed from a definition.
+     *
+     * @param value the computed value.
+     * @param implementation the implementation the value was computed with.
+     */
+    protected class DefinitionValue(val value: NumberInterface, val implementation: NumberImplementation)
+
 }
@@ -24,9 +24,12 @@ class MutableEvaluationContext(parent: EvaluationContext? = null,
 
     /**
      * Writes data stored in the [other] context over data stored in this one.
+     * If the other context was created from this one, and this one hasn't changed since,
+     * the definition values it computed are kept as well.
      * @param other the context from which to copy data.
      */
     fun apply(other: EvaluationContext) {
+        val keepValues = other.isForkOf(this)
         if(other.numberImplementation != null) numberImplementation = other.numberImplementation
         for(name in other.variables) {
             setVariable(name, other.getVariable(name) ?: continue)
@@ -34,53 +37,91 @@ class MutableEvaluationContext(parent: EvaluationContext? = null,
         for(name in other.definitions) {
             setDefinition(name, other.getDefinition(name) ?: continue)
         }
+        if(keepValues) takeDefinitionValues(other)
+    }
+
+    /**
+     * Gets the implementation to use while applying an operator or function to numbers of the given
+     * implementation. The inherited implementation is kept if it creates numbers of the same class,
+     * since it may create them with settings, such as their precision, that the registered one doesn't.
+     * @param implementation the implementation of the numbers the operator or function is applied to.
+     * @return the implementation to use.
+     */
+    fun implementationFor(implementation: NumberImplementation): NumberImplementation {
+        val inherited = inheritedNumberImplementation
+        return if(inherited.implementation == implementation.implementation) inherited else implementation
+    }
+
+    /**
+     * Gets the value of the given definition, computing it only if it hasn't been computed
+     * since the variables and definitions it depends on last changed.
+     * @param name the name of the definition.
+     * @param definition the tree of the definition.
+     * @return the value of the definition.
+     */
+    private fun definitionValue(name: String, definition: TreeNode): NumberInterface {
+        val implementation = inheritedNumberImplementation
+        val cached = definitionValueMap[name]
+        if(cached != null && cached.implementation === implementation) return cached.value
+        val value = definition.reduceIterative(this)
+        if(isPureDefinition(name)) definitionValueMap = definitionValueMap.put(name, DefinitionValue(value, implementation))
+        return value
     }
 
     override fun reduceNode(treeNode: TreeNode, vararg children: Any): NumberInterface {
         val oldNumberImplementation = numberImplementation
         val abacus = inheritedAbacus
         val promotionManager = abacus.promotionManager
+        val pluginManager = abacus.pluginManager
         val toReturn = when(treeNode){
             is NumberNode -> {
-                inheritedNumberImplementation.instanceForString(treeNode.number)
+                treeNode.valueFor(inheritedNumberImplementation)
             }
             is VariableNode -> {
                 val variable = getVariable(treeNode.variable)
                 if(variable != null) return variable
                 val definition = getDefinition(treeNode.variable)
-                if(definition != null) return definition.reduce(this)
+                if(definition != null) return definitionValue(treeNode.variable, definition)
                 throw NumberReducerException("variable is not defined.")
             }
             is NumberUnaryNode -> {
                 val child = children[0] as NumberInterface
-                numberImplementation = abacus.pluginManager.interfaceImplementationFor(child.javaClass)
-                abacus.pluginManager.operatorFor(treeNode.operation)
-                        .apply(this, child)
+                numberImplementation = implementationFor(pluginManager.interfaceImplementationFor(child.javaClass))
+                val operator = if(treeNode is LinkedNumberUnaryNode && treeNode.isLinkedTo(pluginManager))
+                    treeNode.operator else pluginManager.operatorFor(treeNode.operation)
+                operator.apply(this, child)
             }
             is NumberBinaryNode -> {
                 val left = children[0] as NumberInterface
                 val right = children[1] as NumberInterface
                 val promotionResult = promotionManager.promote(left, right)
-                numberImplementation = promotionResult.promotedTo
-                abacus.pluginManager.operatorFor(treeNode.operation).apply(this, *promotionResult.items)
+                numberImplementation = implementationFor(promotionResult.promotedTo)
+                val operator = if(treeNode is LinkedNumberBinaryNode && treeNode.isLinkedTo(pluginManager))
+                    treeNode.operator else pluginManager.operatorFor(treeNode.operation)
+                operator.apply(this, *promotionResult.items)
             }
             is NumberFunctionNode -> {
                 val promotionResult = promotionManager
                         .promote(*children.map { it as NumberInterface }.toTypedArray())
-                numberImplementation = promotionResult.promotedTo
-                abacus.pluginManager.functionFor(treeNode.callTo).apply(this, *promotionResult.items)
+                numberImplementation = implementationFor(promotionResult.promotedTo)
+                val function = if(treeNode is LinkedNumberFunctionNode && treeNode.isLinkedTo(pluginManager))
+                    treeNode.function else pluginManager.functionFor(treeNode.callTo)
+                function.apply(this, *promotionResult.items)
             }
             is TreeValueUnaryNode -> {
-                abacus.pluginManager.treeValueOperatorFor(treeNode.operation)
-                        .apply(this, treeNode.applyTo)
+                val operator = if(treeNode is LinkedTreeValueUnaryNode && treeNode.isLinkedTo(pluginManager))
+                    treeNode.operator else pluginManager.treeValueOperatorFor(treeNode.operation)
+                operator.apply(this, treeNode.applyTo)
             }
             is TreeValueBinaryNode -> {
-                abacus.pluginManager.treeValueOperatorFor(treeNode.operation)
-                        .apply(this, treeNode.left, treeNode.right)
+                val operator = if(treeNode is LinkedTreeValueBinaryNode && treeNode.isLinkedTo(pluginManager))
+                    treeNode.operator else pluginManager.treeValueOperatorFor(treeNode.operation)
+                operator.apply(this, treeNode.left, treeNode.right)
             }
             is TreeValueFunctionNode -> {
-                abacus.pluginManager.treeValueFunctionFor(treeNode.callTo)
-                        .apply(this, *treeNode.children.toTypedArray())
+                val function = if(treeNode is LinkedTreeValueFunctionNode && treeNode.isLinkedTo(pluginManager))
+                    treeNode.function else pluginManager.treeValueFunctionFor(treeNode.callTo)
+                function.apply(this, *treeNode.children.toTypedArray())
             }
             else -> throw ReductionException("unrecognized tree node.")
         }
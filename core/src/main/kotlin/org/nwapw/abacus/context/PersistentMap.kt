@@ -0,0 +1,256 @@
+package org.nwapw.abacus.context
+
+/**
+ * An immutable map stored as a hash array mapped trie.
+ *
+ * Adding or removing a key creates a new map, which shares all but the path to the changed key with
+ * the old one, so both take only a few array copies rather than a copy of the whole map. Each level of
+ * the trie uses five bits of the key's hash to pick a child out of a bitmap-indexed array, so the trie
+ * is at most seven levels deep, and lookups only visit a handful of nodes no matter how large the map is.
+ *
+ * @param K the type of the keys.
+ * @param V the type of the values.
+ * @property size the number of entries in the map.
+ */
+class PersistentMap<K : Any, V : Any> private constructor(private val root: Any?, val size: Int) {
+
+    /**
+     * Creates a new empty map.
+     */
+    constructor() : this(null, 0)
+
+    /**
+     * The set of all keys in the map, which is computed every time it is accessed.
+     */
+    val keys: Set<K>
+        get() {
+            val set = mutableSetOf<K>()
+            forEach { key, _ -> set.add(key) }
+            return set
+        }
+
+    /**
+     * Gets the value for the given key.
+     *
+     * @param key the key to look up.
+     * @return the value, or null if the key is not in the map.
+     */
+    operator fun get(key: K): V? {
+        val hash = hash(key)
+        var node = root
+        var shift = 0
+        while(true) {
+            when(node) {
+                is Branch -> {
+                    val bit = 1 shl ((hash ushr shift) and MASK)
+                    if(node.bitmap and bit == 0) return null
+                    node = node.children[Integer.bitCount(node.bitmap and (bit - 1))]
+                    shift += BITS
+                }
+                is Leaf<*, *> -> {
+                    @Suppress("UNCHECKED_CAST")
+                    return if(node.hash == hash && node.key == key) node.value as V else null
+                }
+                is Collision -> {
+                    if(node.hash != hash) return null
+                    @Suppress("UNCHECKED_CAST")
+                    return node.leaves.firstOrNull { it.key == key }?.value as V?
+                }
+                else -> return null
+            }
+        }
+    }
+
+    /**
+     * Checks whether the map contains the given key.
+     *
+     * @param key the key to look for.
+     * @return whether the key is in the map.
+     */
+    fun containsKey(key: K) = get(key) != null
+
+    /**
+     * Creates a map with the given key set to the given value.
+     *
+     * @param key the key to set.
+     * @param value the value to set it to.
+     * @return the new map.
+     */
+    fun put(key: K, value: V): PersistentMap<K, V> {
+        val newSize = if(containsKey(key)) size else size + 1
+        return PersistentMap(put(root, 0, Leaf(hash(key), key, value)), newSize)
+    }
+
+    /**
+     * Creates a map without the given key.
+     *
+     * @param key the key to remove.
+     * @return the new map, or this map if it doesn't contain the key.
+     */
+    fun remove(key: K): PersistentMap<K, V> {
+        if(!containsKey(key)) return this
+        return PersistentMap(remove(root, 0, hash(key), key), size - 1)
+    }
+
+    /**
+     * Calls the given function with every entry in the map.
+     *
+     * @param action the function to call with every key and value.
+     */
+    fun forEach(action: (K, V) -> Unit) {
+        val pending = mutableListOf<Any?>(root)
+        while(!pending.isEmpty()) {
+            val node = pending.removeAt(pending.size - 1)
+            @Suppress("UNCHECKED_CAST")
+            when(node) {
+                is Branch -> pending.addAll(node.children)
+                is Leaf<*, *> -> action(node.key as K, node.value as V)
+                is Collision -> node.leaves.forEach { action(it.key as K, it.value as V) }
+            }
+        }
+    }
+
+    /**
+     * Creates a trie node with the given leaf added to the given node.
+     *
+     * @param node the node to add the leaf to, which may be null.
+     * @param shift the number of hash bits used by the levels above the node.
+     * @param leaf the leaf to add.
+     * @return the new node.
+     */
+    private fun put(node: Any?, shift: Int, leaf: Leaf<*, *>): Any {
+        return when(node) {
+            is Branch -> {
+                val bit = 1 shl ((leaf.hash ushr shift) and MASK)
+                val index = Integer.bitCount(node.bitmap and (bit - 1))
+                if(node.bitmap and bit == 0) {
+                    val children = arrayOfNulls<Any>(node.children.size + 1)
+                    System.arraycopy(node.children, 0, children, 0, index)
+                    System.arraycopy(node.children, index, children, index + 1, node.children.size - index)
+                    children[index] = leaf
+                    Branch(node.bitmap or bit, children)
+                } else {
+                    val children = node.children.copyOf()
+                    children[index] = put(children[index], shift + BITS, leaf)
+                    Branch(node.bitmap, children)
+                }
+            }
+            is Leaf<*, *> -> when {
+                node.hash != leaf.hash -> merge(node, node.hash, leaf, shift)
+                node.key == leaf.key -> leaf
+                else -> Collision(leaf.hash, arrayOf(node, leaf))
+            }
+            is Collision -> when {
+                node.hash != leaf.hash -> merge(node, node.hash, leaf, shift)
+                else -> Collision(leaf.hash, node.leaves.filter { it.key != leaf.key }.toTypedArray() + leaf)
+            }
+            else -> leaf
+        }
+    }
+
+    /**
+     * Creates a branch that holds both the given node and the given leaf, which have different hashes.
+     *
+     * @param node the existing leaf or collision node.
+     * @param hash the hash of the existing node.
+     * @param leaf the leaf being added.
+     * @param shift the number of hash bits used by the levels above the branch.
+     * @return the new branch.
+     */
+    private fun merge(node: Any, hash: Int, leaf: Leaf<*, *>, shift: Int): Branch {
+        val nodeIndex = (hash ushr shift) and MASK
+        val leafIndex = (leaf.hash ushr shift) and MASK
+        if(nodeIndex == leafIndex) {
+            return Branch(1 shl nodeIndex, arrayOf(merge(node, hash, leaf, shift + BITS)))
+        }
+        val children: Array<Any?> = if(nodeIndex < leafIndex) arrayOf(node, leaf) else arrayOf(leaf, node)
+        return Branch((1 shl nodeIndex) or (1 shl leafIndex), children)
+    }
+
+    /**
+     * Creates a trie node with the given key removed from the given node.
+     *
+     * @param node the node to remove the key from.
+     * @param shift the number of hash bits used by the levels above the node.
+     * @param hash the hash of the key.
+     * @param key the key to remove.
+     * @return the new node, or null if it would be empty.
+     */
+    private fun remove(node: Any?, shift: Int, hash: Int, key: K): Any? {
+        return when(node) {
+            is Branch -> {
+                val bit = 1 shl ((hash ushr shift) and MASK)
+                val index = Integer.bitCount(node.bitmap and (bit - 1))
+                val child = remove(node.children[index], shift + BITS, hash, key)
+                when {
+                    child != null -> {
+                        val children = node.children.copyOf()
+                        children[index] = child
+                        Branch(node.bitmap, children)
+                    }
+                    node.children.size == 1 -> null
+                    else -> {
+                        val children = arrayOfNulls<Any>(node.children.size - 1)
+                        System.arraycopy(node.children, 0, children, 0, index)
+                        System.arraycopy(node.children, index + 1, children, index, children.size - index)
+                        if(children.size == 1 && children[0] !is Branch) children[0]
+                        else Branch(node.bitmap and bit.inv(), children)
+                    }
+                }
+            }
+            is Collision -> {
+                val leaves = node.leaves.filter { it.key != key }
+                if(leaves.size == 1) leaves[0] else Collision(hash, leaves.toTypedArray())
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * Computes the hash of the given key, mixing the high bits into the low ones used by the top levels.
+     *
+     * @param key the key.
+     * @return the hash.
+     */
+    private fun hash(key: K): Int {
+        val hash = key.hashCode()
+        return hash xor (hash ushr 16)
+    }
+
+    companion object {
+        /**
+         * The number of hash bits used by each level of the trie.
+         */
+        private const val BITS = 5
+        /**
+         * The mask that selects the hash bits of a single level.
+         */
+        private const val MASK = (1 shl BITS) - 1
+    }
+
+    /**
+     * A node with up to 32 children, of which only those that exist are stored.
+     *
+     * @param bitmap the bitmap of which children exist.
+     * @param children the children that exist, in order.
+     */
+    private class Branch(val bitmap: Int, val children: Array<Any?>)
+
+    /**
+     * A single entry of the map.
+     *
+     * @param hash the hash of the key.
+     * @param key the key.
+     * @param value the value.
+     */
+    private class Leaf<out K, out V>(val hash: Int, val key: K, val value: V)
+
+    /**
+     * A node holding several entries whose keys have the same hash.
+     *
+     * @param hash the hash shared by the keys.
+     * @param leaves the entries.
+     */
+    private class Collision(val hash: Int, val leaves: Array<Leaf<*, *>>)
+
+}
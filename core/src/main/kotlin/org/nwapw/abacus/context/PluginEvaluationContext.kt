@@ -1,9 +1,11 @@
 package org.nwapw.abacus.context
 
 import org.nwapw.abacus.Abacus
+import org.nwapw.abacus.exception.ContextException
 import org.nwapw.abacus.number.NumberInterface
 import org.nwapw.abacus.plugin.NumberImplementation
 import org.nwapw.abacus.tree.nodes.TreeNode
+import org.nwapw.abacus.tree.nodes.VariableNode
 
 /**
  * An evaluation context with limited mutability.
@@ -28,7 +30,9 @@ abstract class PluginEvaluationContext(parent: EvaluationContext? = null,
      * @param value the value of the variable.
      */
     fun setVariable(name: String, value: NumberInterface) {
-        variableMap[name] = value
+        variableMap = variableMap.put(name, value)
+        variableNames.add(name)
+        invalidate(name)
     }
 
     /**
@@ -37,22 +41,119 @@ abstract class PluginEvaluationContext(parent: EvaluationContext? = null,
      * @param value the value of the definition.
      */
     fun setDefinition(name: String, value: TreeNode) {
-        definitionMap[name] = value
+        val dependencies = referencedNames(value)
+        checkCycle(name, dependencies)
+        updateDependents(name, dependencyMap[name] ?: emptySet(), dependencies)
+        definitionMap = definitionMap.put(name, value)
+        dependencyMap = dependencyMap.put(name, dependencies)
+        localPurityMap = localPurityMap.put(name, hasPureOperations(value))
+        definitionNames.add(name)
+        updatePurity(name)
+        invalidate(name)
     }
 
     /**
      * Clears the variables defined in this context.
      */
     fun clearVariables(){
-        variableMap.clear()
+        resetVariables()
     }
 
     /**
      * Clears the definitions defined in this context.
      */
     fun clearDefinitions(){
-        definitionMap.clear()
+        resetDefinitions()
     }
 
+    /**
+     * Records that the given definition now refers to a different set of names.
+     * @param name the name of the definition.
+     * @param oldDependencies the names the definition referred to before.
+     * @param newDependencies the names the definition refers to now.
+     */
+    private fun updateDependents(name: String, oldDependencies: Set<String>, newDependencies: Set<String>) {
+        for(dependency in oldDependencies) {
+            if(dependency in newDependencies) continue
+            val dependents = (dependentMap[dependency] ?: continue) - name
+            dependentMap = if(dependents.isEmpty()) dependentMap.remove(dependency)
+                else dependentMap.put(dependency, dependents)
+        }
+        for(dependency in newDependencies) {
+            if(dependency in oldDependencies) continue
+            dependentMap = dependentMap.put(dependency, (dependentMap[dependency] ?: emptySet()) + name)
+        }
+    }
+
+    /**
+     * Works out again whether the given definition is pure, along with the definitions that depend on it,
+     * stopping at the definitions whose purity doesn't change. Names that aren't definitions are treated
+     * as pure. Since a single definition changed, the purity of every other definition can only change
+     * in the same direction, so each is changed at most once.
+     * @param name the name of the definition that changed.
+     */
+    private fun updatePurity(name: String) {
+        val pending = mutableListOf(name)
+        while(!pending.isEmpty()) {
+            val changed = pending.removeAt(pending.size - 1)
+            val pure = (localPurityMap[changed] ?: continue) &&
+                    (dependencyMap[changed] ?: emptySet()).all { purityMap[it] ?: true }
+            if(purityMap[changed] == pure) continue
+            purityMap = purityMap.put(changed, pure)
+            pending.addAll(dependentMap[changed] ?: continue)
+        }
+    }
+
+    /**
+     * Forgets the computed values of all definitions that depend on the given name,
+     * directly or through other definitions. Only the definitions that depend on the name are visited.
+     * @param name the name of the variable or definition that changed.
+     */
+    private fun invalidate(name: String) {
+        if(definitionValueMap.size == 0) return
+        val invalid = mutableSetOf(name)
+        val pending = mutableListOf(name)
+        while(!pending.isEmpty()) {
+            val changed = pending.removeAt(pending.size - 1)
+            for(dependent in dependentMap[changed] ?: continue) {
+                if(invalid.add(dependent)) pending.add(dependent)
+            }
+        }
+        for(definition in invalid) definitionValueMap = definitionValueMap.remove(definition)
+    }
+
+    /**
+     * Makes sure that a definition with the given dependencies doesn't refer to itself,
+     * directly or through other definitions. Definitions are followed even when a variable
+     * of the same name hides them, since the variable may be cleared later.
+     * @param name the name of the definition.
+     * @param dependencies the names the definition refers to.
+     */
+    private fun checkCycle(name: String, dependencies: Set<String>) {
+        val visited = mutableSetOf<String>()
+        val pending = dependencies.toMutableList()
+        while(!pending.isEmpty()) {
+            val dependency = pending.removeAt(pending.size - 1)
+            if(!visited.add(dependency)) continue
+            if(dependency == name) throw ContextException("definition of $name refers to itself.")
+            pending.addAll(getDependencies(dependency) ?: continue)
+        }
+    }
+
+    /**
+     * Finds the names of all the variables used in the given tree.
+     * @param tree the tree to search.
+     * @return the names of the variables.
+     */
+    private fun referencedNames(tree: TreeNode): Set<String> {
+        val names = mutableSetOf<String>()
+        val pending = mutableListOf(tree)
+        while(!pending.isEmpty()) {
+            val node = pending.removeAt(pending.size - 1)
+            if(node is VariableNode) names.add(node.variable)
+            pending.addAll(node.subtrees)
+        }
+        return names
+    }
 
 }
\ No newline at end of file
@@ -8,5 +8,16 @@ import org.nwapw.abacus.number.NumberInterface
  *
  * This function takes some number of input NumberInterfaces and returns
  * another NumberInterface as a result.
+ *
+ * @param isPure whether this function always returns the same value for the same arguments,
+ * and has no side effects. Calls to pure functions with constant arguments
+ * can be evaluated once, ahead of time.
  */
-abstract class NumberFunction : Applicable<NumberInterface, NumberInterface>
\ No newline at end of file
+abstract class NumberFunction(val isPure: Boolean) : Applicable<NumberInterface, NumberInterface> {
+
+    /**
+     * Creates a new function that is assumed to be impure.
+     */
+    constructor() : this(false)
+
+}
\ No newline at end of file
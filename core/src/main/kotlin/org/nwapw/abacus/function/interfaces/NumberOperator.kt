@@ -13,8 +13,23 @@ import org.nwapw.abacus.number.NumberInterface
  * @param associativity the associativity of the operator.
  * @param type the type of the operator (binary, unary, etc)
  * @param precedence the precedence of the operator.
+ * @param isPure whether this operator always returns the same value for the same operands,
+ * and has no side effects. Pure operators applied to constant operands
+ * can be evaluated once, ahead of time.
  */
 abstract class NumberOperator(associativity: OperatorAssociativity, type: OperatorType,
-                              precedence: Int) :
+                              precedence: Int, val isPure: Boolean) :
         Operator(associativity, type, precedence),
-        Applicable<NumberInterface, NumberInterface>
\ No newline at end of file
+        Applicable<NumberInterface, NumberInterface> {
+
+    /**
+     * Creates a new operator that is assumed to be impure.
+     *
+     * @param associativity the associativity of the operator.
+     * @param type the type of the operator (binary, unary, etc)
+     * @param precedence the precedence of the operator.
+     */
+    constructor(associativity: OperatorAssociativity, type: OperatorType, precedence: Int) :
+            this(associativity, type, precedence, false)
+
+}
\ No newline at end of file
@@ -223,10 +223,12 @@ abstract class NumberInterface: Comparable<NumberInterface> {
 
     /**
      * Checks whether the given number is an integer or not.
+     * Implementations that can tell without computing the fractional part
+     * of the number should override this.
      *
      * @return whether the number is an integer or not.
      */
-    fun isInteger() = fractionalPart().signum() == 0
+    open fun isInteger() = fractionalPart().signum() == 0
 
     /**
      * Returns a NumberRangeBuilder object, which is used to create a range.
@@ -1,6 +1,9 @@
 package org.nwapw.abacus.parsing
 
+import org.nwapw.abacus.plugin.PluginListener
+import org.nwapw.abacus.plugin.PluginManager
 import org.nwapw.abacus.tree.nodes.TreeNode
+import java.util.concurrent.atomic.AtomicLong
 
 /**
  * Class to combine a [Tokenizer] and a [Parser]
@@ -11,9 +14,86 @@ import org.nwapw.abacus.tree.nodes.TreeNode
  * in this class are used only to ensure the tokenizer and parser
  * are of the same type.
  *
+ * Parsed trees are kept in a least recently used cache, keyed by the input string.
+ * The cache is bounded both by the number of entries and by their total weight,
+ * which is the combined length of the cached inputs, and is cleared whenever
+ * plugins are loaded or unloaded, since that changes how strings are tokenized.
+ * The tree builder should be added as a plugin listener after the tokenizer and parser,
+ * so that the cache is cleared only once they have been updated.
+ *
+ * The same cached tree is returned to every caller that parses the same string, from
+ * any thread. This is safe because trees are never changed once they are built: the only
+ * state they keep is computed from their own contents, namely the structural hash and the
+ * numbers parsed by [org.nwapw.abacus.tree.nodes.NumberNode], which come out the same
+ * no matter which caller computes them first.
+ *
  * @param <T> the type of tokens created by the tokenizer and used by the parser.
+ * @param maxEntries the maximum number of cached trees, or 0 to disable caching.
+ * @param maxWeight the maximum combined length of the cached inputs.
  */
-class TreeBuilder<T>(private val tokenizer: Tokenizer<T>, private val parser: Parser<T>) {
+class TreeBuilder<T> @JvmOverloads constructor(private val tokenizer: Tokenizer<T>,
+                                               private val parser: Parser<T>,
+                                               private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+                                               private val maxWeight: Long = DEFAULT_MAX_WEIGHT)
+    : PluginListener {
+
+    companion object {
+        /**
+         * The default maximum number of cached trees.
+         */
+        const val DEFAULT_MAX_ENTRIES = 4096
+        /**
+         * The default maximum combined length of the cached inputs.
+         */
+        const val DEFAULT_MAX_WEIGHT = 1_048_576L
+    }
+
+    /**
+     * The cached trees, in order from least to most recently used.
+     */
+    private val cache = LinkedHashMap<String, TreeNode>(16, 0.75f, true)
+    /**
+     * The combined length of the cached inputs.
+     */
+    private var cacheWeight = 0L
+    /**
+     * The number of times the cache has been cleared, used to avoid caching
+     * trees that were parsed before plugins changed.
+     */
+    private var generation = 0L
+    /**
+     * The number of parses answered from the cache.
+     */
+    private val hitCounter = AtomicLong()
+    /**
+     * The number of parses that weren't in the cache.
+     */
+    private val missCounter = AtomicLong()
+    /**
+     * The number of trees removed from the cache to make room for others.
+     */
+    private val evictionCounter = AtomicLong()
+
+    /**
+     * The number of parses answered from the cache.
+     */
+    val hits: Long
+        get() = hitCounter.get()
+    /**
+     * The number of parses that weren't in the cache.
+     */
+    val misses: Long
+        get() = missCounter.get()
+    /**
+     * The number of trees removed from the cache to make room for others.
+     */
+    val evictions: Long
+        get() = evictionCounter.get()
+    /**
+     * The number of trees currently in the cache.
+     */
+    val cacheSize: Int
+        get() = synchronized(cache) { cache.size }
 
     /**
      * Parses the given [string] into a tree.
@@ -21,6 +101,52 @@ class TreeBuilder<T>(private val tokenizer: Tokenizer<T>, private val parser: Pa
      * @param string the string to parse into a tree.
      * @return the resulting tree.
      */
-    fun fromString(string: String): TreeNode = parser.constructTree(tokenizer.tokenizeString(string))
+    fun fromString(string: String): TreeNode {
+        if (maxEntries <= 0) return parser.constructTree(tokenizer.tokenizeString(string))
+        val parseGeneration = synchronized(cache) {
+            val cached = cache[string]
+            if (cached != null) {
+                hitCounter.incrementAndGet()
+                return cached
+            }
+            generation
+        }
+        missCounter.incrementAndGet()
+        val tree = parser.constructTree(tokenizer.tokenizeString(string))
+        val weight = string.length.toLong()
+        if (weight > maxWeight) return tree
+        synchronized(cache) {
+            if (generation != parseGeneration) return tree
+            val previous = cache.put(string, tree)
+            if (previous == null) cacheWeight += weight
+            val iterator = cache.entries.iterator()
+            while ((cache.size > maxEntries || cacheWeight > maxWeight) && iterator.hasNext()) {
+                val eldest = iterator.next()
+                iterator.remove()
+                cacheWeight -= eldest.key.length
+                evictionCounter.incrementAndGet()
+            }
+        }
+        return tree
+    }
+
+    /**
+     * Removes all trees from the cache.
+     */
+    fun clearCache() {
+        synchronized(cache) {
+            cache.clear()
+            cacheWeight = 0
+            generation++
+        }
+    }
+
+    override fun onLoad(manager: PluginManager) {
+        clearCache()
+    }
+
+    override fun onUnload(manager: PluginManager) {
+        clearCache()
+    }
 
-}
\ No newline at end of file
+}
@@ -11,7 +11,7 @@ import org.nwapw.abacus.number.NumberInterface
  *
  * This is a standard operator that simply evaluates the factorial of a number.
  */
-class OperatorFactorial: NumberOperator(OperatorAssociativity.LEFT, OperatorType.UNARY_POSTFIX, 0) {
+class OperatorFactorial: NumberOperator(OperatorAssociativity.LEFT, OperatorType.UNARY_POSTFIX, 0, true) {
 
     override fun matchesParams(context: PluginEvaluationContext, params: Array<out NumberInterface>) =
         params.size == 1
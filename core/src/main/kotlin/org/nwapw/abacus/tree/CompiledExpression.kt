@@ -0,0 +1,58 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.Abacus
+import org.nwapw.abacus.EvaluationResult
+import org.nwapw.abacus.context.MutableEvaluationContext
+import org.nwapw.abacus.exception.ReductionException
+import org.nwapw.abacus.number.NumberInterface
+import org.nwapw.abacus.tree.nodes.TreeNode
+
+/**
+ * A tree that has been compiled for repeated evaluation.
+ *
+ * The values of the expression's variables are passed in as arguments, in the order the
+ * variables were given when compiling. The expression is compiled again if the plugins change.
+ *
+ * @param abacus the abacus instance the expression was compiled with.
+ * @param tree the tree the expression was compiled from.
+ * @param variables the names of the variables passed in as arguments.
+ */
+class CompiledExpression(val abacus: Abacus, val tree: TreeNode, val variables: List<String>) {
+
+    /**
+     * The result of compiling the tree against the current plugins.
+     */
+    @Volatile
+    private var compiled = ExpressionCompiler(abacus, variables).compile(tree)
+
+    /**
+     * Evaluates the expression in a new sub-context of the abacus instance's context.
+     *
+     * @param values the values of the variables.
+     * @return the evaluation result.
+     */
+    fun evaluate(vararg values: NumberInterface): EvaluationResult {
+        return evaluateWithContext(abacus.context.mutableSubInstance(), *values)
+    }
+
+    /**
+     * Evaluates the expression using the given context.
+     *
+     * @param context the context to use for the evaluation.
+     * @param values the values of the variables.
+     * @return the evaluation result.
+     */
+    fun evaluateWithContext(context: MutableEvaluationContext, vararg values: NumberInterface): EvaluationResult {
+        if(values.size != variables.size) throw ReductionException("wrong number of variable values.")
+        var current = compiled
+        if(current.registryVersion != abacus.pluginManager.registryVersion) {
+            current = ExpressionCompiler(abacus, variables).compile(tree)
+            compiled = current
+        }
+        if(current.interpreted) {
+            for(i in 0 until values.size) context.setVariable(variables[i], values[i])
+        }
+        return EvaluationResult(current.root.evaluate(context, values), context)
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.context.MutableEvaluationContext
+import org.nwapw.abacus.number.NumberInterface
+
+/**
+ * A single node of a [CompiledExpression].
+ *
+ * Compiled nodes hold everything they need to evaluate themselves, such as their
+ * operators and child nodes, so evaluating them doesn't require any lookups.
+ */
+interface CompiledNode {
+
+    /**
+     * Evaluates this node.
+     *
+     * @param context the context to evaluate the node in.
+     * @param slots the values of the expression's variables, in order.
+     * @return the resulting value.
+     */
+    fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>): NumberInterface
+
+}
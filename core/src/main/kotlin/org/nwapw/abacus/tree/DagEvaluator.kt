@@ -0,0 +1,86 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.context.MutableEvaluationContext
+import org.nwapw.abacus.number.NumberInterface
+import org.nwapw.abacus.tree.nodes.*
+import java.util.*
+
+/**
+ * An evaluator that evaluates every node of a tree at most once.
+ *
+ * Trees whose equal subtrees have been shared by a [TreeInterner] contain the same node in
+ * many places. The value of each node is remembered the first time it's evaluated, and reused
+ * wherever else the node appears. Nodes that use an impure operator or function, or refer to a
+ * definition that does, as well as their ancestors, are evaluated every time. Tree value operators and functions, such as = and :=,
+ * may change variables, so all remembered values are forgotten whenever one is evaluated.
+ *
+ * @param context the context to evaluate the tree in.
+ */
+class DagEvaluator(val context: MutableEvaluationContext) {
+
+    /**
+     * Evaluates the given tree.
+     *
+     * @param tree the tree to evaluate.
+     * @return the resulting value.
+     */
+    fun evaluate(tree: TreeNode): NumberInterface {
+        val values = IdentityHashMap<TreeNode, NumberInterface>()
+        val stack = ArrayList<Frame>()
+        stack.add(Frame(tree))
+        var result: NumberInterface? = null
+        while(!stack.isEmpty()) {
+            val frame = stack[stack.size - 1]
+            if(frame.nextChild < frame.children.size) {
+                val child = frame.children[frame.nextChild]
+                val known = values[child]
+                if(known != null) {
+                    frame.values[frame.nextChild++] = known
+                } else {
+                    stack.add(Frame(child))
+                }
+                continue
+            }
+            stack.removeAt(stack.size - 1)
+            @Suppress("UNCHECKED_CAST")
+            val value = context.reduceNode(frame.node, *(frame.values as Array<Any>))
+            val pure = frame.pure && context.isPureNode(frame.node)
+            if(frame.node is TreeValueUnaryNode || frame.node is TreeValueBinaryNode
+                    || frame.node is TreeValueFunctionNode) values.clear()
+            if(pure) values[frame.node] = value
+            if(stack.isEmpty()) {
+                result = value
+            } else {
+                val parent = stack[stack.size - 1]
+                parent.values[parent.nextChild++] = value
+                parent.pure = parent.pure && pure
+            }
+        }
+        return result!!
+    }
+
+    /**
+     * A node that is being evaluated, along with the values of its children.
+     *
+     * @param node the node being evaluated.
+     */
+    private class Frame(val node: TreeNode) {
+        /**
+         * The children that are evaluated before the node.
+         */
+        val children = node.reducedChildren
+        /**
+         * The values of the children.
+         */
+        val values = arrayOfNulls<NumberInterface>(children.size)
+        /**
+         * The index of the next child to evaluate.
+         */
+        var nextChild = 0
+        /**
+         * Whether all the children evaluated so far are pure.
+         */
+        var pure = true
+    }
+
+}
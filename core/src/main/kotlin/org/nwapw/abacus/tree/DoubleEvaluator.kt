@@ -0,0 +1,124 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.context.EvaluationContext
+import org.nwapw.abacus.exception.ComputationInterruptedException
+import org.nwapw.abacus.number.standard.NaiveNumber
+import org.nwapw.abacus.plugin.PluginManager
+import org.nwapw.abacus.tree.nodes.*
+
+/**
+ * An evaluator that evaluates trees entirely using primitive doubles.
+ *
+ * Every operator and function in the tree is evaluated using the double kernel registered for it,
+ * so no numbers are created until the final result is known. Whether a tree can be evaluated this way,
+ * that is, whether every node has a kernel, every variable is a [NaiveNumber], and the tree is no deeper
+ * than [MAX_DEPTH], can be checked ahead of time using [canEvaluate]. If the tree can't be evaluated,
+ * or an argument turns out to be outside a kernel's domain, NaN is returned, and the tree should be
+ * evaluated as usual. Like number operations, evaluation stops with a [ComputationInterruptedException]
+ * if the thread is interrupted.
+ *
+ * @param pluginManager the plugin manager to find the kernels in.
+ */
+class DoubleEvaluator(val pluginManager: PluginManager) {
+
+    companion object {
+        /**
+         * The maximum depth of a tree that is evaluated using doubles.
+         */
+        const val MAX_DEPTH = 1024
+    }
+
+    /**
+     * Checks whether the given tree can be evaluated using doubles, without evaluating it.
+     * A tree that passes the check may still evaluate to NaN if an argument is outside a kernel's domain.
+     *
+     * @param tree the tree to check.
+     * @param context the context to read variables from.
+     * @return whether the tree can be evaluated using doubles.
+     */
+    fun canEvaluate(tree: TreeNode, context: EvaluationContext): Boolean = canEvaluate(tree, context, 0)
+
+    /**
+     * Checks whether the given tree can be evaluated using doubles, without evaluating it.
+     *
+     * @param tree the tree to check.
+     * @param context the context to read variables from.
+     * @param depth the depth of the node in the whole tree.
+     * @return whether the tree can be evaluated using doubles.
+     */
+    private fun canEvaluate(tree: TreeNode, context: EvaluationContext, depth: Int): Boolean {
+        if(depth > MAX_DEPTH) return false
+        return when(tree) {
+            is NumberNode -> true
+            is VariableNode -> context.getVariable(tree.variable) is NaiveNumber
+            is NumberUnaryNode -> pluginManager.unaryOperatorKernelFor(tree.operation) != null &&
+                    canEvaluate(tree.applyTo, context, depth + 1)
+            is NumberBinaryNode -> pluginManager.binaryOperatorKernelFor(tree.operation) != null &&
+                    canEvaluate(tree.left, context, depth + 1) && canEvaluate(tree.right, context, depth + 1)
+            is NumberFunctionNode -> when(tree.children.size) {
+                1 -> pluginManager.unaryFunctionKernelFor(tree.callTo) != null &&
+                        canEvaluate(tree.children[0], context, depth + 1)
+                2 -> pluginManager.binaryFunctionKernelFor(tree.callTo) != null &&
+                        canEvaluate(tree.children[0], context, depth + 1) &&
+                        canEvaluate(tree.children[1], context, depth + 1)
+                else -> false
+            }
+            else -> false
+        }
+    }
+
+    /**
+     * Evaluates the given tree.
+     *
+     * @param tree the tree to evaluate.
+     * @param context the context to read variables from.
+     * @return the resulting value, or NaN if the tree can't be evaluated using doubles.
+     */
+    fun evaluate(tree: TreeNode, context: EvaluationContext): Double = evaluate(tree, context, 0)
+
+    /**
+     * Evaluates the given tree.
+     *
+     * @param tree the tree to evaluate.
+     * @param context the context to read variables from.
+     * @param depth the depth of the node in the whole tree.
+     * @return the resulting value, or NaN if the tree can't be evaluated using doubles.
+     */
+    private fun evaluate(tree: TreeNode, context: EvaluationContext, depth: Int): Double {
+        if(depth > MAX_DEPTH) return Double.NaN
+        if(Thread.currentThread().isInterrupted) throw ComputationInterruptedException()
+        return when(tree) {
+            is NumberNode -> (tree.valueFor(context.inheritedNumberImplementation) as? NaiveNumber)?.value ?: Double.NaN
+            is VariableNode -> (context.getVariable(tree.variable) as? NaiveNumber)?.value ?: Double.NaN
+            is NumberUnaryNode -> {
+                val kernel = pluginManager.unaryOperatorKernelFor(tree.operation) ?: return Double.NaN
+                val value = evaluate(tree.applyTo, context, depth + 1)
+                if(value.isNaN()) value else kernel.applyAsDouble(value)
+            }
+            is NumberBinaryNode -> {
+                val kernel = pluginManager.binaryOperatorKernelFor(tree.operation) ?: return Double.NaN
+                val left = evaluate(tree.left, context, depth + 1)
+                if(left.isNaN()) return left
+                val right = evaluate(tree.right, context, depth + 1)
+                if(right.isNaN()) right else kernel.applyAsDouble(left, right)
+            }
+            is NumberFunctionNode -> when(tree.children.size) {
+                1 -> {
+                    val kernel = pluginManager.unaryFunctionKernelFor(tree.callTo) ?: return Double.NaN
+                    val value = evaluate(tree.children[0], context, depth + 1)
+                    if(value.isNaN()) value else kernel.applyAsDouble(value)
+                }
+                2 -> {
+                    val kernel = pluginManager.binaryFunctionKernelFor(tree.callTo) ?: return Double.NaN
+                    val left = evaluate(tree.children[0], context, depth + 1)
+                    if(left.isNaN()) return left
+                    val right = evaluate(tree.children[1], context, depth + 1)
+                    if(right.isNaN()) right else kernel.applyAsDouble(left, right)
+                }
+                else -> Double.NaN
+            }
+            else -> Double.NaN
+        }
+    }
+
+}
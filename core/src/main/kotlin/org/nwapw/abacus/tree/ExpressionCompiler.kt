@@ -0,0 +1,181 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.Abacus
+import org.nwapw.abacus.context.MutableEvaluationContext
+import org.nwapw.abacus.number.NumberInterface
+import org.nwapw.abacus.tree.nodes.*
+
+/**
+ * A reducer that compiles a tree into [CompiledNode]s.
+ *
+ * Every operator and function node is compiled into a node that calls the operator
+ * or function directly, and variables passed in as arguments are read from the slots
+ * by index. Tree value operators and functions, such as = and :=, as well as other variables,
+ * are handed to the context to be evaluated by name, as they would be when not compiled.
+ * Since those can change the values of the variables, a tree with any such nodes is compiled
+ * again with every variable read from the context instead of the slots.
+ * Compiled nodes evaluate their children recursively, so trees deeper than [MAX_DEPTH]
+ * are evaluated by the context in their entirety.
+ *
+ * @param abacus the abacus instance whose plugins to compile with.
+ * @param variables the names of the variables passed in as arguments.
+ */
+class ExpressionCompiler(val abacus: Abacus, val variables: List<String>) : Reducer<CompiledNode> {
+
+    companion object {
+        /**
+         * The maximum depth of a tree that is compiled.
+         */
+        const val MAX_DEPTH = 1024
+    }
+
+    /**
+     * Whether the compiled tree contains any nodes that are evaluated by the context.
+     */
+    private var interpreted = false
+    /**
+     * Whether the variables passed in as arguments are read from the slots.
+     */
+    private var useSlots = true
+
+    /**
+     * Compiles the given tree.
+     *
+     * @param tree the tree to compile.
+     * @return the compilation result.
+     */
+    fun compile(tree: TreeNode): Compilation {
+        interpreted = false
+        useSlots = true
+        val registryVersion = abacus.pluginManager.registryVersion
+        if(tree.reduceIterative(DepthReducer) > MAX_DEPTH) {
+            return Compilation(interpret(tree), true, registryVersion)
+        }
+        var root = tree.reduceIterative(this)
+        if(interpreted) {
+            useSlots = false
+            root = tree.reduceIterative(this)
+        }
+        return Compilation(root, interpreted, registryVersion)
+    }
+
+    /**
+     * Creates a node that has the context evaluate the given tree.
+     *
+     * @param tree the tree to evaluate.
+     * @return the compiled node.
+     */
+    private fun interpret(tree: TreeNode) = object : CompiledNode {
+        override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>) =
+                tree.reduceIterative(context)
+    }
+
+    override fun reduceNode(treeNode: TreeNode, vararg children: Any): CompiledNode {
+        val pluginManager = abacus.pluginManager
+        val promotionManager = abacus.promotionManager
+        return when(treeNode) {
+            is NumberNode -> object : CompiledNode {
+                override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>) =
+                        treeNode.valueFor(context.inheritedNumberImplementation)
+            }
+            is VariableNode -> {
+                val slot = if(useSlots) variables.indexOf(treeNode.variable) else -1
+                if(slot != -1) object : CompiledNode {
+                    override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>) =
+                            slots[slot]
+                } else object : CompiledNode {
+                    override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>) =
+                            context.reduceNode(treeNode)
+                }
+            }
+            is NumberUnaryNode -> {
+                val child = children[0] as CompiledNode
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                        ?: return compileLookup(treeNode, children)
+                object : CompiledNode {
+                    override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>): NumberInterface {
+                        val value = child.evaluate(context, slots)
+                        val oldNumberImplementation = context.numberImplementation
+                        context.numberImplementation = context.implementationFor(pluginManager.interfaceImplementationFor(value.javaClass))
+                        val result = operator.apply(context, value)
+                        context.numberImplementation = oldNumberImplementation
+                        return result
+                    }
+                }
+            }
+            is NumberBinaryNode -> {
+                val left = children[0] as CompiledNode
+                val right = children[1] as CompiledNode
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                        ?: return compileLookup(treeNode, children)
+                object : CompiledNode {
+                    override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>): NumberInterface {
+                        val promotionResult = promotionManager.promote(left.evaluate(context, slots),
+                                right.evaluate(context, slots))
+                        val oldNumberImplementation = context.numberImplementation
+                        context.numberImplementation = context.implementationFor(promotionResult.promotedTo)
+                        val result = operator.apply(context, *promotionResult.items)
+                        context.numberImplementation = oldNumberImplementation
+                        return result
+                    }
+                }
+            }
+            is NumberFunctionNode -> {
+                val arguments = Array(children.size) { children[it] as CompiledNode }
+                val function = pluginManager.functionFor(treeNode.callTo)
+                        ?: return compileLookup(treeNode, children)
+                object : CompiledNode {
+                    override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>): NumberInterface {
+                        val values = Array(arguments.size) { arguments[it].evaluate(context, slots) }
+                        val promotionResult = promotionManager.promote(*values)
+                        val oldNumberImplementation = context.numberImplementation
+                        context.numberImplementation = context.implementationFor(promotionResult.promotedTo)
+                        val result = function.apply(context, *promotionResult.items)
+                        context.numberImplementation = oldNumberImplementation
+                        return result
+                    }
+                }
+            }
+            else -> {
+                interpreted = true
+                interpret(treeNode)
+            }
+        }
+    }
+
+    /**
+     * Compiles a node whose operator or function isn't registered, so that it
+     * is looked up by the context when evaluated.
+     *
+     * @param treeNode the node to compile.
+     * @param children the compiled children of the node.
+     * @return the compiled node.
+     */
+    private fun compileLookup(treeNode: TreeNode, children: Array<out Any>): CompiledNode {
+        val arguments = Array(children.size) { children[it] as CompiledNode }
+        return object : CompiledNode {
+            override fun evaluate(context: MutableEvaluationContext, slots: Array<out NumberInterface>): NumberInterface {
+                val values = Array<Any>(arguments.size) { arguments[it].evaluate(context, slots) }
+                return context.reduceNode(treeNode, *values)
+            }
+        }
+    }
+
+    /**
+     * A reducer that finds the depth of the compiled part of a tree.
+     */
+    private object DepthReducer : Reducer<Int> {
+        override fun reduceNode(treeNode: TreeNode, vararg children: Any): Int =
+                1 + children.fold(0) { depth, child -> maxOf(depth, child as Int) }
+    }
+
+    /**
+     * The result of compiling a tree.
+     *
+     * @param root the compiled root node.
+     * @param interpreted whether any part of the tree is evaluated by the context.
+     * @param registryVersion the version of the plugin registry the tree was compiled against.
+     */
+    class Compilation(val root: CompiledNode, val interpreted: Boolean, val registryVersion: Int)
+
+}
@@ -0,0 +1,99 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.plugin.PluginManager
+import org.nwapw.abacus.tree.nodes.*
+
+/**
+ * A reducer that flattens a tree into a [TreeProgram].
+ *
+ * Nodes are visited in the order they are evaluated, so every node's instruction is emitted
+ * right after those of its children. The registers are allocated like a stack: the value of
+ * each node is stored in the register after the values of its earlier siblings. Operator and function nodes
+ * are bound to the operators and functions registered with the plugin manager, and all other nodes,
+ * as well as nodes whose operator or function isn't registered, are left for the context to evaluate.
+ *
+ * @param pluginManager the plugin manager to find the operators and functions in.
+ */
+class ProgramCompiler(val pluginManager: PluginManager) : Reducer<Int> {
+
+    /**
+     * The instructions emitted so far.
+     */
+    private val code = mutableListOf<Int>()
+    /**
+     * The constant pool of the program.
+     */
+    private val pool = mutableListOf<Any>()
+    /**
+     * The indices of the objects already in the pool.
+     */
+    private val poolIndices = mutableMapOf<Any, Int>()
+    /**
+     * The number of registers that are currently in use.
+     */
+    private var usedRegisters = 0
+    /**
+     * The largest number of registers used at once.
+     */
+    private var registerCount = 0
+
+    /**
+     * Compiles the given tree.
+     *
+     * @param tree the tree to compile.
+     * @return the compiled program.
+     */
+    fun compile(tree: TreeNode): TreeProgram {
+        code.clear()
+        pool.clear()
+        poolIndices.clear()
+        usedRegisters = 0
+        registerCount = 0
+        val registryVersion = pluginManager.registryVersion
+        tree.reduceIterative(this)
+        return TreeProgram(code.toIntArray(), pool.toTypedArray(), registerCount, registryVersion)
+    }
+
+    /**
+     * Emits a single instruction, whose arguments are the values in the topmost registers.
+     *
+     * @param opcode the opcode of the instruction.
+     * @param operand the operand of the instruction, which is added to the pool.
+     * @param argumentCount the number of arguments of the instruction.
+     * @return the register the result of the instruction is stored in.
+     */
+    private fun emit(opcode: Int, operand: Any, argumentCount: Int): Int {
+        val target = usedRegisters - argumentCount
+        code.add(opcode)
+        code.add(target)
+        code.add(poolIndices.getOrPut(operand) { pool.add(operand); pool.size - 1 })
+        code.add(argumentCount)
+        usedRegisters = target + 1
+        registerCount = maxOf(registerCount, usedRegisters)
+        return target
+    }
+
+    override fun reduceNode(treeNode: TreeNode, vararg children: Any): Int {
+        return when(treeNode) {
+            is NumberNode -> emit(TreeProgram.LOAD_NUMBER, treeNode, 0)
+            is VariableNode -> emit(TreeProgram.LOAD_VARIABLE, treeNode, 0)
+            is NumberUnaryNode -> {
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                if(operator != null) emit(TreeProgram.APPLY_UNARY, operator, 1)
+                else emit(TreeProgram.INTERPRET, treeNode, 1)
+            }
+            is NumberBinaryNode -> {
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                if(operator != null) emit(TreeProgram.APPLY_BINARY, operator, 2)
+                else emit(TreeProgram.INTERPRET, treeNode, 2)
+            }
+            is NumberFunctionNode -> {
+                val function = pluginManager.functionFor(treeNode.callTo)
+                if(function != null) emit(TreeProgram.CALL, function, children.size)
+                else emit(TreeProgram.INTERPRET, treeNode, children.size)
+            }
+            else -> emit(TreeProgram.INTERPRET, treeNode, 0)
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.tree.nodes.*
+
+/**
+ * A reducer that shares equal subtrees, turning a tree into a directed acyclic graph.
+ *
+ * Every node is rebuilt from the shared versions of its children, and then looked up in a table of
+ * the nodes seen so far, so that all occurrences of a subtree become the same node. Since the children
+ * of each node are already shared when it is looked up, comparing them is only a matter of identity.
+ * The table is kept between calls to [intern], so subtrees are also shared between trees.
+ */
+class TreeInterner : Reducer<TreeNode> {
+
+    /**
+     * The nodes seen so far, each mapped to itself.
+     */
+    private val nodes = mutableMapOf<TreeNode, TreeNode>()
+
+    /**
+     * Shares the equal subtrees of the given tree.
+     *
+     * @param tree the tree to intern.
+     * @return the tree, with equal subtrees replaced by a single shared node.
+     */
+    fun intern(tree: TreeNode): TreeNode = tree.reduceIterative(this)
+
+    /**
+     * Finds the shared node equal to the given one.
+     *
+     * @param node the node to find.
+     * @return the shared node.
+     */
+    private fun share(node: TreeNode): TreeNode = nodes.getOrPut(node) { node }
+
+    /**
+     * Checks whether the given lists contain the same nodes.
+     *
+     * @param first the first list.
+     * @param second the second list.
+     * @return whether every node in one list is the same object as the node at the same index in the other.
+     */
+    private fun sameNodes(first: List<TreeNode>, second: List<TreeNode>) =
+            first.size == second.size && first.indices.all { first[it] === second[it] }
+
+    override fun reduceNode(treeNode: TreeNode, vararg children: Any): TreeNode {
+        return share(when(treeNode) {
+            is NumberUnaryNode -> {
+                val child = children[0] as TreeNode
+                if(child === treeNode.applyTo) treeNode else NumberUnaryNode(treeNode.operation, child)
+            }
+            is NumberBinaryNode -> {
+                val left = children[0] as TreeNode
+                val right = children[1] as TreeNode
+                if(left === treeNode.left && right === treeNode.right) treeNode
+                else NumberBinaryNode(treeNode.operation, left, right)
+            }
+            is NumberFunctionNode -> {
+                val arguments = children.map { it as TreeNode }
+                if(sameNodes(arguments, treeNode.children)) treeNode
+                else NumberFunctionNode(treeNode.callTo, arguments)
+            }
+            is TreeValueUnaryNode -> {
+                val child = intern(treeNode.applyTo)
+                if(child === treeNode.applyTo) treeNode else TreeValueUnaryNode(treeNode.operation, child)
+            }
+            is TreeValueBinaryNode -> {
+                val left = intern(treeNode.left)
+                val right = intern(treeNode.right)
+                if(left === treeNode.left && right === treeNode.right) treeNode
+                else TreeValueBinaryNode(treeNode.operation, left, right)
+            }
+            is TreeValueFunctionNode -> {
+                val arguments = treeNode.children.map { intern(it) }
+                if(sameNodes(arguments, treeNode.children)) treeNode
+                else TreeValueFunctionNode(treeNode.callTo, arguments)
+            }
+            else -> treeNode
+        })
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.function.Operator
+import org.nwapw.abacus.function.OperatorType
+import org.nwapw.abacus.plugin.PluginManager
+import org.nwapw.abacus.tree.nodes.*
+
+/**
+ * A reducer that links a tree to the operators and functions of a plugin manager.
+ *
+ * Every operator and function node is replaced with a linked node that holds the operator
+ * or function it applies, so that they are only looked up once, rather than every time the tree
+ * is evaluated. Linked nodes also hold the number of operands or arguments of what they apply, which for
+ * operators is resolved from the operator's type. Nodes whose operator or function isn't registered, or
+ * whose operator takes a different number of operands than the node has, are left unlinked, and are
+ * looked up by name when evaluated, as usual. The linked tree prints and evaluates the same as the original.
+ *
+ * @param pluginManager the plugin manager to look up the operators and functions in.
+ */
+class TreeLinker(val pluginManager: PluginManager) : Reducer<TreeNode> {
+
+    /**
+     * Links the given tree.
+     *
+     * @param tree the tree to link.
+     * @return the linked tree.
+     */
+    fun link(tree: TreeNode): TreeNode = tree.reduceIterative(this)
+
+    /**
+     * Gets the number of operands the given operator takes.
+     *
+     * @param operator the operator, or null if it isn't registered.
+     * @return the number of operands, or 0 if the operator isn't registered.
+     */
+    private fun arityOf(operator: Operator?) = when(operator?.type) {
+        null -> 0
+        OperatorType.BINARY_INFIX -> 2
+        else -> 1
+    }
+
+    override fun reduceNode(treeNode: TreeNode, vararg children: Any): TreeNode {
+        val version = pluginManager.registryVersion
+        return when(treeNode) {
+            is NumberUnaryNode -> {
+                val child = children[0] as TreeNode
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                if(operator != null && arityOf(operator) == 1)
+                    LinkedNumberUnaryNode(treeNode.operation, child, operator, 1, version)
+                else NumberUnaryNode(treeNode.operation, child)
+            }
+            is NumberBinaryNode -> {
+                val left = children[0] as TreeNode
+                val right = children[1] as TreeNode
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                if(operator != null && arityOf(operator) == 2)
+                    LinkedNumberBinaryNode(treeNode.operation, left, right, operator, 2, version)
+                else NumberBinaryNode(treeNode.operation, left, right)
+            }
+            is NumberFunctionNode -> {
+                val arguments = children.map { it as TreeNode }
+                val function = pluginManager.functionFor(treeNode.callTo)
+                if(function != null)
+                    LinkedNumberFunctionNode(treeNode.callTo, arguments, function, arguments.size, version)
+                else NumberFunctionNode(treeNode.callTo, arguments)
+            }
+            is TreeValueUnaryNode -> {
+                val child = link(treeNode.applyTo)
+                val operator = pluginManager.treeValueOperatorFor(treeNode.operation)
+                if(operator != null && arityOf(operator) == 1)
+                    LinkedTreeValueUnaryNode(treeNode.operation, child, operator, 1, version)
+                else TreeValueUnaryNode(treeNode.operation, child)
+            }
+            is TreeValueBinaryNode -> {
+                val left = link(treeNode.left)
+                val right = link(treeNode.right)
+                val operator = pluginManager.treeValueOperatorFor(treeNode.operation)
+                if(operator != null && arityOf(operator) == 2)
+                    LinkedTreeValueBinaryNode(treeNode.operation, left, right, operator, 2, version)
+                else TreeValueBinaryNode(treeNode.operation, left, right)
+            }
+            is TreeValueFunctionNode -> {
+                val arguments = treeNode.children.map { link(it) }
+                val function = pluginManager.treeValueFunctionFor(treeNode.callTo)
+                if(function != null)
+                    LinkedTreeValueFunctionNode(treeNode.callTo, arguments, function, arguments.size, version)
+                else TreeValueFunctionNode(treeNode.callTo, arguments)
+            }
+            else -> treeNode
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.Abacus
+import org.nwapw.abacus.exception.DomainException
+import org.nwapw.abacus.number.NumberInterface
+import org.nwapw.abacus.plugin.standard.StandardPlugin
+import org.nwapw.abacus.tree.nodes.*
+
+/**
+ * A reducer that simplifies trees before they are evaluated.
+ *
+ * Operators and functions that are pure and only have numbers as operands are evaluated
+ * ahead of time, and replaced with their result. Calls that fail, such as ln(-1), are left
+ * as they are, so that they fail when evaluated. The standard multiplication, addition, caret and
+ * negation operators are also simplified where their result is known: x*1, 1*x, x+0, 0+x and x^1
+ * become x, and a double negation is removed. Tree value operators and functions are never changed.
+ *
+ * @param abacus the abacus instance whose plugins and number implementation to use.
+ */
+class TreeOptimizer(val abacus: Abacus) : Reducer<TreeNode> {
+
+    /**
+     * The context used to evaluate constant subtrees.
+     */
+    private val context = abacus.context.mutableSubInstance()
+    /**
+     * The number implementation used to evaluate constant subtrees.
+     */
+    private val implementation = context.inheritedNumberImplementation
+
+    /**
+     * Optimizes the given tree.
+     *
+     * @param tree the tree to optimize.
+     * @return the optimized tree, which evaluates to the same value.
+     */
+    fun optimize(tree: TreeNode): TreeNode = tree.reduceIterative(this)
+
+    /**
+     * Checks whether the given node is a number equal to the given value.
+     *
+     * @param node the node to check.
+     * @param value the value, as a string.
+     * @return whether the node is that number.
+     */
+    private fun isNumber(node: TreeNode, value: String) = node is NumberNode &&
+            node.valueFor(implementation).compareTo(implementation.instanceForString(value)) == 0
+
+    /**
+     * Evaluates the given node, whose children are all numbers.
+     *
+     * @param node the node to evaluate.
+     * @param children the children of the node.
+     * @return the resulting number node, or the node itself if it can't be evaluated.
+     */
+    private fun fold(node: TreeNode, children: List<TreeNode>): TreeNode {
+        val values = Array<Any>(children.size) { (children[it] as NumberNode).valueFor(implementation) }
+        val value: NumberInterface
+        try {
+            value = context.reduceNode(node, *values)
+        } catch(exception: DomainException) {
+            return node
+        }
+        return FoldedNumberNode(value.toString(), implementation, value)
+    }
+
+    override fun reduceNode(treeNode: TreeNode, vararg children: Any): TreeNode {
+        val pluginManager = abacus.pluginManager
+        return when(treeNode) {
+            is NumberUnaryNode -> {
+                val child = children[0] as TreeNode
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                val node = NumberUnaryNode(treeNode.operation, child)
+                when {
+                    operator == null -> node
+                    operator.isPure && child is NumberNode -> fold(node, listOf(child))
+                    operator === StandardPlugin.OP_NEGATE && child is NumberUnaryNode
+                            && pluginManager.operatorFor(child.operation) === StandardPlugin.OP_NEGATE -> child.applyTo
+                    else -> node
+                }
+            }
+            is NumberBinaryNode -> {
+                val left = children[0] as TreeNode
+                val right = children[1] as TreeNode
+                val operator = pluginManager.operatorFor(treeNode.operation)
+                val node = NumberBinaryNode(treeNode.operation, left, right)
+                when {
+                    operator == null -> node
+                    operator.isPure && left is NumberNode && right is NumberNode -> fold(node, listOf(left, right))
+                    operator === StandardPlugin.OP_MULTIPLY && isNumber(right, "1") -> left
+                    operator === StandardPlugin.OP_MULTIPLY && isNumber(left, "1") -> right
+                    operator === StandardPlugin.OP_ADD && isNumber(right, "0") -> left
+                    operator === StandardPlugin.OP_ADD && isNumber(left, "0") -> right
+                    operator === StandardPlugin.OP_CARET && isNumber(right, "1") -> left
+                    else -> node
+                }
+            }
+            is NumberFunctionNode -> {
+                val arguments = children.map { it as TreeNode }
+                val function = pluginManager.functionFor(treeNode.callTo)
+                val node = NumberFunctionNode(treeNode.callTo, arguments)
+                if(function != null && function.isPure && arguments.all { it is NumberNode }) fold(node, arguments)
+                else node
+            }
+            else -> treeNode
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.nwapw.abacus.tree
+
+import org.nwapw.abacus.Abacus
+import org.nwapw.abacus.context.MutableEvaluationContext
+import org.nwapw.abacus.function.interfaces.NumberFunction
+import org.nwapw.abacus.function.interfaces.NumberOperator
+import org.nwapw.abacus.number.NumberInterface
+import org.nwapw.abacus.tree.nodes.NumberNode
+import org.nwapw.abacus.tree.nodes.TreeNode
+import org.nwapw.abacus.tree.nodes.VariableNode
+
+/**
+ * A tree flattened into a compact list of instructions.
+ *
+ * Every instruction is [INSTRUCTION_SIZE] integers long: the opcode, the register the result is
+ * stored in, the index of the instruction's operand in the constant pool, and the number of arguments.
+ * The arguments of an instruction are always in the registers starting at its result register,
+ * so each register is reused as soon as its value has been consumed. The pool holds the number
+ * and variable nodes, as well as the operators and functions, that the instructions refer to.
+ *
+ * @param code the instructions of the program.
+ * @param pool the constant pool of the program.
+ * @param registerCount the number of registers the program uses.
+ * @param registryVersion the version of the plugin registry the operators and functions were found in.
+ */
+class TreeProgram(val code: IntArray, val pool: Array<Any>, val registerCount: Int, val registryVersion: Int) {
+
+    companion object {
+        /**
+         * The number of integers in a single instruction.
+         */
+        const val INSTRUCTION_SIZE = 4
+        /**
+         * Loads the value of a number node from the pool.
+         */
+        const val LOAD_NUMBER = 0
+        /**
+         * Loads the value of a variable node from the pool.
+         */
+        const val LOAD_VARIABLE = 1
+        /**
+         * Applies a unary operator from the pool.
+         */
+        const val APPLY_UNARY = 2
+        /**
+         * Applies a binary operator from the pool.
+         */
+        const val APPLY_BINARY = 3
+        /**
+         * Calls a function from the pool.
+         */
+        const val CALL = 4
+        /**
+         * Has the context evaluate a node from the pool, using the arguments as the node's reduced children.
+         */
+        const val INTERPRET = 5
+    }
+
+    /**
+     * Evaluates this program.
+     *
+     * @param abacus the abacus instance to use for promotion.
+     * @param context the context to evaluate the program in.
+     * @return the resulting value.
+     */
+    fun evaluate(abacus: Abacus, context: MutableEvaluationContext): NumberInterface {
+        val pluginManager = abacus.pluginManager
+        val promotionManager = abacus.promotionManager
+        val implementation = context.inheritedNumberImplementation
+        val registers = arrayOfNulls<NumberInterface>(registerCount)
+        var index = 0
+        while(index < code.size) {
+            val target = code[index + 1]
+            val operand = pool[code[index + 2]]
+            val argumentCount = code[index + 3]
+            registers[target] = when(code[index]) {
+                LOAD_NUMBER -> (operand as NumberNode).valueFor(implementation)
+                LOAD_VARIABLE -> context.reduceNode(operand as VariableNode)
+                APPLY_UNARY -> {
+                    val child = registers[target]!!
+                    val oldNumberImplementation = context.numberImplementation
+                    context.numberImplementation = context.implementationFor(pluginManager.interfaceImplementationFor(child.javaClass))
+                    val result = (operand as NumberOperator).apply(context, child)
+                    context.numberImplementation = oldNumberImplementation
+                    result
+                }
+                APPLY_BINARY -> {
+                    val promotionResult = promotionManager.promote(registers[target]!!, registers[target + 1]!!)
+                    val oldNumberImplementation = context.numberImplementation
+                    context.numberImplementation = context.implementationFor(promotionResult.promotedTo)
+                    val result = (operand as NumberOperator).apply(context, *promotionResult.items)
+                    context.numberImplementation = oldNumberImplementation
+                    result
+                }
+                CALL -> {
+                    val promotionResult = promotionManager
+                            .promote(*Array(argumentCount) { registers[target + it]!! })
+                    val oldNumberImplementation = context.numberImplementation
+                    context.numberImplementation = context.implementationFor(promotionResult.promotedTo)
+                    val result = (operand as NumberFunction).apply(context, *promotionResult.items)
+                    context.numberImplementation = oldNumberImplementation
+                    result
+                }
+                else -> context.reduceNode(operand as TreeNode, *Array<Any>(argumentCount) { registers[target + it]!! })
+            }
+            index += INSTRUCTION_SIZE
+        }
+        return registers[0]!!
+    }
+
+}
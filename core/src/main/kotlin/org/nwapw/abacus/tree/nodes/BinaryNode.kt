@@ -13,6 +13,12 @@ package org.nwapw.abacus.tree.nodes
  */
 abstract class BinaryNode(val operation: String, val left: TreeNode, val right: TreeNode) : TreeNode() {
 
+    override val subtrees: List<TreeNode>
+        get() = listOf(left, right)
+
+    override val label: String
+        get() = operation
+
     override fun toString(): String {
         return "(" + left.toString() + operation + right.toString() + ")"
     }
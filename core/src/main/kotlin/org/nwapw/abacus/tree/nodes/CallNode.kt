@@ -11,6 +11,12 @@ package org.nwapw.abacus.tree.nodes
  */
 abstract class CallNode(val callTo: String, val children: List<TreeNode>) : TreeNode() {
 
+    override val subtrees: List<TreeNode>
+        get() = children
+
+    override val label: String
+        get() = callTo
+
     override fun toString(): String {
         val buffer = StringBuffer()
         buffer.append(callTo)
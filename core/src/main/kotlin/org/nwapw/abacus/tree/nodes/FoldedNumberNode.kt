@@ -0,0 +1,28 @@
+package org.nwapw.abacus.tree.nodes
+
+import org.nwapw.abacus.number.NumberInterface
+import org.nwapw.abacus.plugin.NumberImplementation
+
+/**
+ * A number node that holds the result of evaluating a constant subtree ahead of time.
+ *
+ * The exact value computed is kept for the implementation that computed it, since
+ * the string form of a number may be rounded. Other implementations parse the string.
+ *
+ * @param number the string form of the value.
+ * @param implementation the implementation that computed the value.
+ * @param value the computed value.
+ */
+class FoldedNumberNode(number: String, val implementation: NumberImplementation, val value: NumberInterface)
+    : NumberNode(number) {
+
+    override fun shallowEquals(other: TreeNode): Boolean {
+        return super.shallowEquals(other) && value === (other as FoldedNumberNode).value
+    }
+
+    override fun valueFor(implementation: NumberImplementation): NumberInterface {
+        if(implementation === this.implementation) return value
+        return super.valueFor(implementation)
+    }
+
+}
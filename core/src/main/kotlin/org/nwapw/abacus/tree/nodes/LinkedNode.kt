@@ -0,0 +1,32 @@
+package org.nwapw.abacus.tree.nodes
+
+import org.nwapw.abacus.plugin.PluginManager
+
+/**
+ * A node that has been bound to the operator or function it applies.
+ *
+ * Linked nodes are created by a [org.nwapw.abacus.tree.TreeLinker], and hold a direct reference
+ * to what they apply, so that evaluating them doesn't require looking it up by name. The binding
+ * is only valid as long as the plugin manager's registry hasn't changed since the node was linked.
+ */
+interface LinkedNode {
+
+    /**
+     * The number of operands or arguments the linked operator or function takes,
+     * resolved when the node was linked.
+     */
+    val arity: Int
+    /**
+     * The version of the plugin manager's registry that this node was linked against.
+     */
+    val registryVersion: Int
+
+    /**
+     * Checks whether the binding of this node is still valid.
+     *
+     * @param manager the plugin manager the node was linked with.
+     * @return whether the registry is unchanged since linking.
+     */
+    fun isLinkedTo(manager: PluginManager) = registryVersion == manager.registryVersion
+
+}
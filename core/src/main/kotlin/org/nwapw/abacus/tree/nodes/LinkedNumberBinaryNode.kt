@@ -0,0 +1,18 @@
+package org.nwapw.abacus.tree.nodes
+
+import org.nwapw.abacus.function.interfaces.NumberOperator
+
+/**
+ * A [NumberBinaryNode] that is bound to the operator it applies.
+ *
+ * @param operation the operation this node performs.
+ * @param left the left child of this node.
+ * @param right the right child of this node.
+ * @param operator the operator applied by this node.
+ * @param arity the number of operands this node's operator takes.
+ * @param registryVersion the version of the plugin registry the operator was found in.
+ */
+class LinkedNumberBinaryNode(operation: String, left: TreeNode, right: TreeNode,
+                             val operator: NumberOperator, override val arity: Int,
+                             override val registryVersion: Int)
+    : NumberBinaryNode(operation, left, right), LinkedNode
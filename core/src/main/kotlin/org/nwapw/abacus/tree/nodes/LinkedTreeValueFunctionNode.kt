@@ -0,0 +1,17 @@
+package org.nwapw.abacus.tree.nodes
+
+import org.nwapw.abacus.function.interfaces.TreeValueFunction
+
+/**
+ * A [TreeValueFunctionNode] that is bound to the function it applies.
+ *
+ * @param name the name of the function.
+ * @param children the arguments of the function.
+ * @param function the function applied by this node.
+ * @param arity the number of arguments this node's function takes.
+ * @param registryVersion the version of the plugin registry the function was found in.
+ */
+class LinkedTreeValueFunctionNode(name: String, children: List<TreeNode>,
+                                  val function: TreeValueFunction, override val arity: Int,
+                                  override val registryVersion: Int)
+    : TreeValueFunctionNode(name, children), LinkedNode
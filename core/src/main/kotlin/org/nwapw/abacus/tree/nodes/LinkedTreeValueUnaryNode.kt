@@ -0,0 +1,17 @@
+package org.nwapw.abacus.tree.nodes
+
+import org.nwapw.abacus.function.interfaces.TreeValueOperator
+
+/**
+ * A [TreeValueUnaryNode] that is bound to the operator it applies.
+ *
+ * @param operation the operation this node performs.
+ * @param child the node the operation should be applied to.
+ * @param operator the operator applied by this node.
+ * @param arity the number of operands this node's operator takes.
+ * @param registryVersion the version of the plugin registry the operator was found in.
+ */
+class LinkedTreeValueUnaryNode(operation: String, child: TreeNode,
+                               val operator: TreeValueOperator, override val arity: Int,
+                               override val registryVersion: Int)
+    : TreeValueUnaryNode(operation, child), LinkedNode
@@ -12,9 +12,12 @@ import org.nwapw.abacus.tree.Reducer
  * @param left the left child of this node.
  * @param right the right child of this node.
  */
-class NumberBinaryNode(operation: String, left: TreeNode, right: TreeNode)
+open class NumberBinaryNode(operation: String, left: TreeNode, right: TreeNode)
     : BinaryNode(operation, left, right) {
 
+    override val reducedChildren: List<TreeNode>
+        get() = listOf(left, right)
+
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
         val left = left.reduce(reducer)
         val right = right.reduce(reducer)
@@ -10,7 +10,10 @@ import org.nwapw.abacus.tree.Reducer
  *
  * @param function the function string.
  */
-class NumberFunctionNode(function: String, children: List<TreeNode>) : CallNode(function, children) {
+open class NumberFunctionNode(function: String, children: List<TreeNode>) : CallNode(function, children) {
+
+    override val reducedChildren: List<TreeNode>
+        get() = children
 
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
         val children = Array<Any>(children.size, { children[it].reduce(reducer) })
@@ -1,5 +1,7 @@
 package org.nwapw.abacus.tree.nodes
 
+import org.nwapw.abacus.number.NumberInterface
+import org.nwapw.abacus.plugin.NumberImplementation
 import org.nwapw.abacus.tree.Reducer
 
 /**
@@ -10,7 +12,33 @@ import org.nwapw.abacus.tree.Reducer
  *
  * @number the number value of this node.
  */
-class NumberNode(val number: String) : TreeNode() {
+open class NumberNode(val number: String) : TreeNode() {
+
+    override val label: String
+        get() = number
+
+    /**
+     * The number last parsed from this node's string, along with the implementation that parsed it.
+     */
+    @Volatile
+    private var parsed: ParsedNumber? = null
+
+    /**
+     * Gets the value of this node in the given number implementation.
+     *
+     * The string is only parsed the first time it's needed by an implementation, and
+     * the parsed number is reused until the node is evaluated with a different implementation.
+     *
+     * @param implementation the implementation to create the number with.
+     * @return the number value of this node.
+     */
+    open fun valueFor(implementation: NumberImplementation): NumberInterface {
+        val current = parsed
+        if(current != null && current.implementation === implementation) return current.value
+        val value = implementation.instanceForString(number)
+        parsed = ParsedNumber(implementation, value)
+        return value
+    }
 
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
         return reducer.reduceNode(this)
@@ -20,4 +48,12 @@ class NumberNode(val number: String) : TreeNode() {
         return number
     }
 
-}
\ No newline at end of file
+    /**
+     * A number parsed by a particular implementation.
+     *
+     * @param implementation the implementation that parsed the number.
+     * @param value the parsed number.
+     */
+    private class ParsedNumber(val implementation: NumberImplementation, val value: NumberInterface)
+
+}
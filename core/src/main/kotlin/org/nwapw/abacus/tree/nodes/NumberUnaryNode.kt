@@ -10,9 +10,12 @@ import org.nwapw.abacus.tree.Reducer
  * @param operation the operation this node performs.
  * @param child the child this node should be applied to.
  */
-class NumberUnaryNode(operation: String, child: TreeNode)
+open class NumberUnaryNode(operation: String, child: TreeNode)
     : UnaryNode(operation, child) {
 
+    override val reducedChildren: List<TreeNode>
+        get() = listOf(applyTo)
+
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
         val child = applyTo.reduce(reducer)
         return reducer.reduceNode(this, child)
@@ -7,6 +7,146 @@ import org.nwapw.abacus.tree.Reducer
  */
 abstract class TreeNode {
 
+    /**
+     * The children that this node reduces before reducing itself, in the order
+     * in which they are passed to the reducer.
+     */
+    open val reducedChildren: List<TreeNode>
+        get() = emptyList()
+
+    /**
+     * All the children of this node, including those that aren't reduced before it.
+     */
+    open val subtrees: List<TreeNode>
+        get() = emptyList()
+
+    /**
+     * The operation, name or number that distinguishes this node from other nodes
+     * of the same class with the same subtrees.
+     */
+    protected abstract val label: String
+
+    /**
+     * The cached structural hash of this node, or 0 if it hasn't been computed yet.
+     * Threads that race to compute it write the same value, so it doesn't need to be synchronized.
+     */
+    private var hash = 0
+
     abstract fun <T : Any> reduce(reducer: Reducer<T>): T
 
-}
\ No newline at end of file
+    /**
+     * Checks whether this node is equal to another, not counting their subtrees.
+     *
+     * @param other the other node.
+     * @return whether the two nodes are of the same class and have the same label and number of subtrees.
+     */
+    protected open fun shallowEquals(other: TreeNode): Boolean {
+        return javaClass == other.javaClass && label == other.label && subtrees.size == other.subtrees.size
+    }
+
+    /**
+     * Checks whether this tree is structurally equal to another. The trees
+     * are compared using an explicit stack, so their depth is not limited.
+     *
+     * @param other the other tree.
+     * @return whether the trees are equal.
+     */
+    override fun equals(other: Any?): Boolean {
+        if(other !is TreeNode) return false
+        val stack = ArrayList<TreeNode>()
+        stack.add(this)
+        stack.add(other)
+        while(!stack.isEmpty()) {
+            val right = stack.removeAt(stack.size - 1)
+            val left = stack.removeAt(stack.size - 1)
+            if(left === right) continue
+            if(left.hashCode() != right.hashCode() || !left.shallowEquals(right)) return false
+            val leftSubtrees = left.subtrees
+            val rightSubtrees = right.subtrees
+            for(i in 0 until leftSubtrees.size) {
+                stack.add(leftSubtrees[i])
+                stack.add(rightSubtrees[i])
+            }
+        }
+        return true
+    }
+
+    /**
+     * Computes the structural hash of this tree, which is cached in every node.
+     * The hashes of the subtrees are computed using an explicit stack, so the depth
+     * of the tree is not limited.
+     *
+     * @return the hash of this tree.
+     */
+    override fun hashCode(): Int {
+        if(hash != 0) return hash
+        val stack = ArrayList<TreeNode>()
+        stack.add(this)
+        while(!stack.isEmpty()) {
+            val node = stack[stack.size - 1]
+            val subtrees = node.subtrees
+            val pending = subtrees.firstOrNull { it.hash == 0 }
+            if(pending != null) {
+                stack.add(pending)
+                continue
+            }
+            stack.removeAt(stack.size - 1)
+            var result = 31 * node.javaClass.name.hashCode() + node.label.hashCode()
+            for(subtree in subtrees) result = 31 * result + subtree.hash
+            node.hash = if(result != 0) result else 1
+        }
+        return hash
+    }
+
+    /**
+     * Reduces this node in the same way as [reduce], but using an explicit stack
+     * instead of recursion, so that the depth of the tree is limited only by the heap.
+     *
+     * @param reducer the reducer to use.
+     * @return the result of the reduction.
+     */
+    fun <T : Any> reduceIterative(reducer: Reducer<T>): T {
+        val stack = ArrayList<ReductionFrame>()
+        stack.add(ReductionFrame(this))
+        var result: Any? = null
+        while (!stack.isEmpty()) {
+            val frame = stack[stack.size - 1]
+            if (frame.nextChild < frame.children.size) {
+                stack.add(ReductionFrame(frame.children[frame.nextChild]))
+                continue
+            }
+            stack.removeAt(stack.size - 1)
+            @Suppress("UNCHECKED_CAST")
+            val value = reducer.reduceNode(frame.node, *(frame.values as Array<Any>))
+            if (stack.isEmpty()) {
+                result = value
+            } else {
+                val parent = stack[stack.size - 1]
+                parent.values[parent.nextChild++] = value
+            }
+        }
+        @Suppress("UNCHECKED_CAST")
+        return result as T
+    }
+
+    /**
+     * A node that is being reduced, along with the already reduced values of its children.
+     *
+     * @param node the node being reduced.
+     */
+    private class ReductionFrame(val node: TreeNode) {
+        /**
+         * The children that need to be reduced before the node.
+         */
+        val children = node.reducedChildren
+        /**
+         * The reduced values of the children.
+         */
+        val values = arrayOfNulls<Any>(children.size)
+        /**
+         * The index of the next child to reduce.
+         */
+        var nextChild = 0
+    }
+
+}
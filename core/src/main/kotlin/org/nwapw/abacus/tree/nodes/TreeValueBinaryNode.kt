@@ -13,7 +13,7 @@ import org.nwapw.abacus.tree.Reducer
  * @param left the left child of this node.
  * @param right the right child of this node.
  */
-class TreeValueBinaryNode(operation: String, left: TreeNode, right: TreeNode)
+open class TreeValueBinaryNode(operation: String, left: TreeNode, right: TreeNode)
     : BinaryNode(operation, left, right) {
 
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
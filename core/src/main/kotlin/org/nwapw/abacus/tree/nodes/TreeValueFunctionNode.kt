@@ -9,7 +9,7 @@ import org.nwapw.abacus.tree.Reducer
  * is mostly to help the reducer. Besides that, this class also does not
  * even attempt to reduce its children.
  */
-class TreeValueFunctionNode(name: String, children: List<TreeNode>) : CallNode(name, children) {
+open class TreeValueFunctionNode(name: String, children: List<TreeNode>) : CallNode(name, children) {
 
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
         return reducer.reduceNode(this)
@@ -11,7 +11,7 @@ import org.nwapw.abacus.tree.Reducer
  * @param operation the operation this node performs.
  * @param child the node the operation should be applied to.
  */
-class TreeValueUnaryNode(operation: String, child: TreeNode)
+open class TreeValueUnaryNode(operation: String, child: TreeNode)
     : UnaryNode(operation, child) {
 
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
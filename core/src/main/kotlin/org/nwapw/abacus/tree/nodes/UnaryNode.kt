@@ -11,6 +11,12 @@ package org.nwapw.abacus.tree.nodes
  */
 abstract class UnaryNode(val operation: String, val applyTo: TreeNode) : TreeNode() {
 
+    override val subtrees: List<TreeNode>
+        get() = listOf(applyTo)
+
+    override val label: String
+        get() = operation
+
     override fun toString(): String {
         return "(" + applyTo.toString() + ")" + operation
     }
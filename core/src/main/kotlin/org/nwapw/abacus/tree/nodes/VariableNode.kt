@@ -12,6 +12,9 @@ import org.nwapw.abacus.tree.Reducer
  */
 class VariableNode(val variable: String) : TreeNode() {
 
+    override val label: String
+        get() = variable
+
     override fun <T : Any> reduce(reducer: Reducer<T>): T {
         return reducer.reduceNode(this)
     }
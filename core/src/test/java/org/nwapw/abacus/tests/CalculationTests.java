@@ -5,11 +5,31 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.nwapw.abacus.Abacus;
 import org.nwapw.abacus.config.Configuration;
+import org.nwapw.abacus.context.MutableEvaluationContext;
+import org.nwapw.abacus.context.PluginEvaluationContext;
+import org.nwapw.abacus.exception.ContextException;
 import org.nwapw.abacus.exception.DomainException;
+import org.nwapw.abacus.function.interfaces.NumberFunction;
 import org.nwapw.abacus.number.NumberInterface;
+import org.nwapw.abacus.number.standard.NaiveNumber;
+import org.nwapw.abacus.number.promotion.PromotionResult;
+import org.nwapw.abacus.number.standard.PreciseNumber;
+import org.nwapw.abacus.number.standard.Precision;
+import org.nwapw.abacus.number.standard.RationalNumber;
+import org.nwapw.abacus.number.standard.RoundingPolicy;
+import org.nwapw.abacus.parsing.standard.PrattParser;
 import org.nwapw.abacus.plugin.standard.StandardPlugin;
+import org.nwapw.abacus.tree.CompiledExpression;
+import org.nwapw.abacus.tree.DoubleEvaluator;
+import org.nwapw.abacus.tree.TreeProgram;
+import org.nwapw.abacus.tree.nodes.BinaryNode;
+import org.nwapw.abacus.tree.nodes.CallNode;
+import org.nwapw.abacus.tree.nodes.LinkedNode;
+import org.nwapw.abacus.tree.nodes.NumberNode;
 import org.nwapw.abacus.tree.nodes.TreeNode;
 
+import java.util.Collections;
+
 public class CalculationTests {
 
     private static Abacus abacus = new Abacus(new Configuration( "precise", new String[]{}));
@@ -106,4 +126,384 @@ public class CalculationTests {
         testDomainException("(-13)^.9999", "((13)`^.9999)");
     }
 
+    @Test
+    public void testPrattParserMatchesShuntingYard() {
+        Abacus prattAbacus = new Abacus(new Configuration("precise", new String[]{}), new PrattParser());
+        prattAbacus.getPluginManager().addInstantiated(new StandardPlugin(prattAbacus.getPluginManager()));
+        prattAbacus.reload();
+        String[] inputs = {
+                "9.5+10", "9.5-10-3", "-9.5", "7!", "abs(-1)", "ln2", "sqrt4*2", "2^-1",
+                "7^(-sqrt2*17)", "(-13)^.9999", "2^3^2", "-2^2", "sqrt(4)!", "abs(1, 2)+3",
+                "x=5*2", "f:=x+1", "3nCr2*2", "(1+2)*(3-4)/5"
+        };
+        for (String input : inputs) {
+            Assert.assertEquals(abacus.parseString(input).toString(), prattAbacus.parseString(input).toString());
+        }
+    }
+
+    @Test
+    public void testDeepNesting() {
+        StringBuilder nested = new StringBuilder();
+        StringBuilder chained = new StringBuilder("1");
+        for (int i = 0; i < 20000; i++) {
+            nested.append("(1+");
+            chained.append("+1");
+        }
+        nested.append("1");
+        for (int i = 0; i < 20000; i++) nested.append(")");
+        Assert.assertTrue(abacus.evaluateTree(abacus.parseString(nested.toString())).getValue()
+                .toString().startsWith("20001"));
+        Assert.assertTrue(abacus.evaluateTree(abacus.parseString(chained.toString())).getValue()
+                .toString().startsWith("20001"));
+    }
+
+    @Test
+    public void testLinkedTrees() {
+        Abacus linkAbacus = new Abacus(new Configuration("precise", new String[]{}));
+        linkAbacus.getPluginManager().addInstantiated(new StandardPlugin(linkAbacus.getPluginManager()));
+        linkAbacus.reload();
+        TreeNode parsedTree = linkAbacus.parseString("abs(-2)^3*5!+8/4");
+        TreeNode linkedTree = linkAbacus.linkTree(parsedTree);
+        Assert.assertEquals(parsedTree.toString(), linkedTree.toString());
+        Assert.assertTrue(linkedTree instanceof LinkedNode);
+        Assert.assertEquals(2, ((LinkedNode) linkedTree).getArity());
+        String expected = linkAbacus.evaluateTree(parsedTree).getValue().toString();
+        Assert.assertEquals(expected, linkAbacus.evaluateTree(linkedTree).getValue().toString());
+        linkAbacus.getPluginManager().registerOperator("+", linkAbacus.getPluginManager().operatorFor("+"));
+        Assert.assertEquals(expected, linkAbacus.evaluateTree(linkedTree).getValue().toString());
+    }
+
+    @Test
+    public void testNumberNodeCache() {
+        NumberNode node = new NumberNode("2.5");
+        NumberInterface first = node.valueFor(StandardPlugin.IMPLEMENTATION_PRECISE);
+        Assert.assertSame(first, node.valueFor(StandardPlugin.IMPLEMENTATION_PRECISE));
+        NumberInterface naive = node.valueFor(StandardPlugin.IMPLEMENTATION_NAIVE);
+        Assert.assertTrue(naive instanceof NaiveNumber);
+        Assert.assertEquals(first.toString(), naive.toString());
+        Assert.assertEquals("2.5", abacus.evaluateTree(node).getValue().toString());
+    }
+
+    @Test
+    public void testCompiledExpressions() {
+        CompiledExpression expression = abacus.compileTree(abacus.parseString("x^2+sin(y)*x"), "x", "y");
+        for (int i = 0; i < 5; i++) {
+            NumberInterface x = StandardPlugin.IMPLEMENTATION_PRECISE.instanceForString(Integer.toString(i));
+            NumberInterface y = StandardPlugin.IMPLEMENTATION_PRECISE.instanceForString(Integer.toString(i * 3));
+            String expected = abacus.evaluateTree(abacus.parseString(
+                    i + "^2+sin(" + (i * 3) + ")*" + i)).getValue().toString();
+            Assert.assertEquals(expected, expression.evaluate(x, y).getValue().toString());
+        }
+        CompiledExpression assignment = abacus.compileTree(abacus.parseString("(z=x*2)+z"), "x");
+        NumberInterface x = StandardPlugin.IMPLEMENTATION_PRECISE.instanceForString("3");
+        Assert.assertEquals("12", assignment.evaluate(x).getValue().toString());
+        CompiledExpression slotAssignment = abacus.compileTree(abacus.parseString("(x=3)+x"), "x");
+        Assert.assertEquals(abacus.evaluateTree(abacus.parseString("(x=3)+x")).getValue().toString(),
+                slotAssignment.evaluate(StandardPlugin.IMPLEMENTATION_PRECISE.instanceForString("5"))
+                        .getValue().toString());
+    }
+
+    @Test
+    public void testDoubleEvaluator() {
+        DoubleEvaluator evaluator = new DoubleEvaluator(abacus.getPluginManager());
+        MutableEvaluationContext context = abacus.getContext().mutableSubInstance();
+        context.setNumberImplementation(StandardPlugin.IMPLEMENTATION_NAIVE);
+        String[] inputs = {"2^10-5!/3", "sin(1)^2+cos(1)^2", "sqrt(16)*ln(exp(2))", "-(3-8)*abs(-2)"};
+        for (String input : inputs) {
+            TreeNode tree = abacus.parseString(input);
+            double value = evaluator.evaluate(tree, context);
+            Assert.assertFalse(Double.isNaN(value));
+            Assert.assertEquals(tree.reduceIterative(context).toString(), new NaiveNumber(value).toString());
+        }
+        Assert.assertTrue(evaluator.canEvaluate(abacus.parseString("ln(-1)"), context));
+        Assert.assertTrue(Double.isNaN(evaluator.evaluate(abacus.parseString("ln(-1)"), context)));
+        Assert.assertFalse(evaluator.canEvaluate(abacus.parseString("random_int(5)"), context));
+        Assert.assertFalse(evaluator.canEvaluate(abacus.parseString("undefinedvar+1"), context));
+        Assert.assertTrue(Double.isNaN(evaluator.evaluate(abacus.parseString("random_int(5)"), context)));
+        TreeNode tree = abacus.parseString("2^10-5!/3");
+        Assert.assertEquals(tree.reduceIterative(context).toString(),
+                abacus.evaluateTreeFastWithContext(tree, context).getValue().toString());
+        try {
+            abacus.evaluateTreeFastWithContext(abacus.parseString("ln(-1)"), context);
+            Assert.fail("Function did not throw DomainException.");
+        } catch (DomainException e){ }
+    }
+
+    @Test
+    public void testTreePrograms() {
+        String[] inputs = {"abs(-2)^3*5!+8/4", "sin(2)+cos(3)", "(z=4)*z", "3nPr2"};
+        for (String input : inputs) {
+            TreeNode tree = abacus.parseString(input);
+            TreeProgram program = abacus.compileProgram(tree);
+            Assert.assertEquals(abacus.evaluateTree(tree).getValue().toString(),
+                    abacus.evaluateProgram(program).getValue().toString());
+        }
+        StringBuilder chained = new StringBuilder("1");
+        for (int i = 0; i < 20000; i++) chained.append("+1");
+        TreeProgram program = abacus.compileProgram(abacus.parseString(chained.toString()));
+        Assert.assertEquals(2, program.getRegisterCount());
+        Assert.assertTrue(abacus.evaluateProgram(program).getValue().toString().startsWith("20001"));
+    }
+
+    @Test
+    public void testTreeOptimizer() {
+        Assert.assertEquals("6", abacus.optimizeTree(abacus.parseString("3!")).toString());
+        Assert.assertEquals("x", abacus.optimizeTree(abacus.parseString("((x*1)+0)^1")).toString());
+        Assert.assertEquals("x", abacus.optimizeTree(abacus.parseString("--x")).toString());
+        Assert.assertEquals("(x+120)", abacus.optimizeTree(abacus.parseString("x+5!*(2-1)")).toString());
+        Assert.assertEquals("random_int(5)", abacus.optimizeTree(abacus.parseString("random_int(5)+0")).toString());
+        TreeNode domainError = abacus.optimizeTree(abacus.parseString("ln(-1)"));
+        Assert.assertEquals("ln(-1)", domainError.toString());
+        try {
+            abacus.evaluateTree(domainError);
+            Assert.fail("Function did not throw DomainException.");
+        } catch (DomainException e){ }
+        TreeNode tree = abacus.parseString("sqrt(2)*sqrt(2)+sin(1)");
+        Assert.assertEquals(abacus.evaluateTree(tree).getValue().toString(),
+                abacus.evaluateTree(abacus.optimizeTree(tree)).getValue().toString());
+        Assert.assertTrue(StandardPlugin.OP_ADD.isPure());
+        Assert.assertTrue(StandardPlugin.FUNCTION_SQRT.isPure());
+        Assert.assertFalse(StandardPlugin.FUNCTION_RAND_INT.isPure());
+        NumberFunction undeclared = new NumberFunction() {
+            @Override
+            public boolean matchesParams(PluginEvaluationContext context, NumberInterface[] params) {
+                return params.length == 1;
+            }
+
+            @Override
+            public NumberInterface applyInternal(PluginEvaluationContext context, NumberInterface[] params) {
+                return params[0];
+            }
+        };
+        Assert.assertFalse(undeclared.isPure());
+    }
+
+    @Test
+    public void testSharedSubtrees() {
+        TreeNode first = abacus.parseString("(a+b)*2");
+        abacus.getTreeBuilder().clearCache();
+        TreeNode second = abacus.parseString("(a+b)*2");
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first, second);
+        Assert.assertNotEquals(abacus.parseString("(a+b)*2"), abacus.parseString("(a-b)*2"));
+        TreeNode tree = abacus.shareSubtrees(abacus.parseString("(2+3)^2/(2+3)+sin(2+3)"));
+        BinaryNode sum = (BinaryNode) tree;
+        BinaryNode quotient = (BinaryNode) sum.getLeft();
+        Assert.assertSame(((BinaryNode) quotient.getLeft()).getLeft(), quotient.getRight());
+        Assert.assertSame(quotient.getRight(), ((CallNode) sum.getRight()).getChildren().get(0));
+        Assert.assertEquals(abacus.evaluateTree(tree).getValue().toString(),
+                abacus.evaluateSharedTree(tree).getValue().toString());
+        TreeNode assignment = abacus.shareSubtrees(abacus.parseString("z+(z=3)+z"));
+        MutableEvaluationContext context = abacus.getContext().mutableSubInstance();
+        context.setVariable("z", StandardPlugin.IMPLEMENTATION_PRECISE.instanceForString("1"));
+        Assert.assertEquals("7", abacus.evaluateSharedTreeWithContext(assignment, context).getValue().toString());
+        abacus.evaluateTreeWithContext(abacus.parseString("r:=random_int(1000000)"), context);
+        TreeNode difference = abacus.shareSubtrees(abacus.parseString("r-r"));
+        boolean differed = false;
+        for (int i = 0; i < 5 && !differed; i++) {
+            differed = abacus.evaluateSharedTreeWithContext(difference, context).getValue().signum() != 0;
+        }
+        Assert.assertTrue(differed);
+    }
+
+    private String definitionName(int index) {
+        return "d" + (char) ('a' + index / 26) + (char) ('a' + index % 26);
+    }
+
+    @Test
+    public void testDefinitionCache() {
+        MutableEvaluationContext context = abacus.getContext().mutableSubInstance();
+        abacus.evaluateTreeWithContext(abacus.parseString("x=1"), context);
+        abacus.evaluateTreeWithContext(abacus.parseString(definitionName(0) + ":=x"), context);
+        for (int i = 1; i <= 40; i++) {
+            String previous = definitionName(i - 1);
+            abacus.evaluateTreeWithContext(abacus.parseString(
+                    definitionName(i) + ":=" + previous + "+" + previous), context);
+        }
+        TreeNode last = abacus.parseString(definitionName(40));
+        Assert.assertEquals("1099511627776", abacus.evaluateTreeWithContext(last, context).getValue().toString());
+        abacus.evaluateTreeWithContext(abacus.parseString("x=2"), context);
+        Assert.assertEquals("2199023255552", abacus.evaluateTreeWithContext(last, context).getValue().toString());
+        abacus.evaluateTreeWithContext(abacus.parseString(definitionName(20) + ":=0"), context);
+        Assert.assertEquals("0", abacus.evaluateTreeWithContext(last, context).getValue().toString());
+        try {
+            abacus.evaluateTreeWithContext(abacus.parseString(definitionName(30) + ":=" + definitionName(40)), context);
+            Assert.fail("Circular definition did not throw ContextException.");
+        } catch (ContextException e){ }
+        abacus.evaluateTreeWithContext(abacus.parseString("q=1"), context);
+        abacus.evaluateTreeWithContext(abacus.parseString("p:=q"), context);
+        try {
+            abacus.evaluateTreeWithContext(abacus.parseString("q:=p"), context);
+            Assert.fail("Circular definition hidden by a variable did not throw ContextException.");
+        } catch (ContextException e){ }
+        abacus.evaluateTreeWithContext(abacus.parseString("r:=random_int(1000000)"), context);
+        abacus.evaluateTreeWithContext(abacus.parseString("a:=r+0"), context);
+        TreeNode random = abacus.parseString("a");
+        String firstRandom = abacus.evaluateTreeWithContext(random, context).getValue().toString();
+        boolean differed = false;
+        for (int i = 0; i < 5 && !differed; i++) {
+            differed = !firstRandom.equals(abacus.evaluateTreeWithContext(random, context).getValue().toString());
+        }
+        Assert.assertTrue(differed);
+        abacus.evaluateTreeWithContext(abacus.parseString("s:=1"), context);
+        abacus.evaluateTreeWithContext(abacus.parseString("u:=s+1"), context);
+        abacus.evaluateTreeWithContext(abacus.parseString("v:=u*1"), context);
+        TreeNode dependent = abacus.parseString("v");
+        Assert.assertEquals("2", abacus.evaluateTreeWithContext(dependent, context).getValue().toString());
+        abacus.evaluateTreeWithContext(abacus.parseString("s:=random_int(1000000)"), context);
+        firstRandom = abacus.evaluateTreeWithContext(dependent, context).getValue().toString();
+        differed = false;
+        for (int i = 0; i < 5 && !differed; i++) {
+            differed = !firstRandom.equals(abacus.evaluateTreeWithContext(dependent, context).getValue().toString());
+        }
+        Assert.assertTrue(differed);
+
+        MutableEvaluationContext child = context.mutableSubInstance();
+        TreeNode tripled = abacus.parseString("t:=x*3");
+        abacus.evaluateTreeWithContext(tripled, child);
+        Assert.assertEquals("6", abacus.evaluateTreeWithContext(abacus.parseString("t"), child).getValue().toString());
+        context.apply(child);
+        abacus.evaluateTreeWithContext(abacus.parseString("x=5"), context);
+        Assert.assertEquals("15", abacus.evaluateTreeWithContext(abacus.parseString("t"), context).getValue().toString());
+    }
+
+    @Test
+    public void testContextForking() {
+        MutableEvaluationContext parent = abacus.getContext().mutableSubInstance();
+        parent.setVariable("x", StandardPlugin.IMPLEMENTATION_PRECISE.instanceForString("1"));
+        MutableEvaluationContext child = parent.mutableSubInstance();
+        Assert.assertEquals("1", child.getVariable("x").toString());
+        abacus.evaluateTreeWithContext(abacus.parseString("y=x+1"), child);
+        Assert.assertNull(parent.getVariable("y"));
+        Assert.assertEquals(Collections.singleton("y"), child.getVariables());
+        parent.apply(child);
+        Assert.assertEquals("2", parent.getVariable("y").toString());
+
+        MutableEvaluationContext snapshot = parent.mutableSubInstance();
+        parent.setVariable("z", StandardPlugin.IMPLEMENTATION_PRECISE.instanceForString("3"));
+        abacus.evaluateTreeWithContext(abacus.parseString("w=4"), snapshot);
+        snapshot.clearVariables();
+        Assert.assertNull(snapshot.getVariable("w"));
+        Assert.assertNull(snapshot.getVariable("z"));
+        Assert.assertEquals("2", snapshot.getVariable("y").toString());
+    }
+
+    @Test
+    public void testPreciseIntegerPowers() {
+        NumberInterface power = new PreciseNumber("1.0001").intPow(1000000);
+        Assert.assertTrue(power.toString().startsWith("26747109931421401729483544817907127664007597.52504"));
+        Assert.assertEquals(0, new PreciseNumber("2").intPow(200)
+                .compareTo(new PreciseNumber("1606938044258990275541962092341162602522202993782792835301376")));
+        Assert.assertEquals("0.125", new PreciseNumber("2").intPow(-3).toString());
+        Assert.assertEquals("1", new PreciseNumber("0").intPow(0).toString());
+        testOutput("1.5^3", "(1.5^3)", "3.375");
+    }
+
+    @Test
+    public void testRoundingPolicies() {
+        String[] inputs = {"exp(2.5)", "sin(1)", "ln(3)", "arctan(0.5)", "2^0.5", "7!/3", "1.1^20"};
+        String[] exactOutputs = new String[inputs.length];
+        for (RoundingPolicy policy : RoundingPolicy.values()) {
+            MutableEvaluationContext context = abacus.getContext().mutableSubInstance();
+            context.setNumberImplementation(StandardPlugin.preciseImplementationFor(new Precision(50, policy)));
+            for (int i = 0; i < inputs.length; i++) {
+                String output = abacus.evaluateTreeWithContext(abacus.parseString(inputs[i]), context)
+                        .getValue().toString();
+                if (policy == RoundingPolicy.EXACT) exactOutputs[i] = output;
+                else Assert.assertEquals(exactOutputs[i], output);
+            }
+        }
+        String digits = "1234567890123456789012345678901234567890";
+        PreciseNumber exact = new PreciseNumber(digits, new Precision(50, RoundingPolicy.EXACT));
+        PreciseNumber rounded = new PreciseNumber(digits, new Precision(50, RoundingPolicy.WORKING_PRECISION));
+        Assert.assertEquals(79, ((PreciseNumber) exact.multiply(exact)).getValue().precision());
+        Assert.assertEquals(65, ((PreciseNumber) rounded.multiply(rounded)).getValue().precision());
+        Assert.assertEquals(RoundingPolicy.EXACT,
+                ((PreciseNumber) exact.add(new PreciseNumber("1"))).getPrecision().getRoundingPolicy());
+    }
+
+
+    @Test
+    public void testContextPrecision() {
+        String exp = "148.4131591025766034211155800405522796234876675938789890467528451109120648209585760796884094598990211";
+        String ln = "1.945910149055313305105352743443179729637084729581861188459390149937579862752069267787658498587871527";
+        String pi = "3.141592653589793238462643383279502884197169399375105820974944592307816406286208998628034825342117068";
+        MutableEvaluationContext shortContext = new MutableEvaluationContext(abacus.getContext(),
+                StandardPlugin.preciseImplementationFor(20), abacus);
+        MutableEvaluationContext longContext = new MutableEvaluationContext(abacus.getContext(),
+                StandardPlugin.preciseImplementationFor(100), abacus);
+        Assert.assertEquals("148.41315910257660342", abacus.evaluateTreeWithContext(
+                abacus.parseString("exp(5)"), shortContext).getValue().toString());
+        Assert.assertEquals(exp, abacus.evaluateTreeWithContext(
+                abacus.parseString("exp(5)"), longContext).getValue().toString());
+        Assert.assertEquals(ln, abacus.evaluateTreeWithContext(
+                abacus.parseString("ln(7)"), longContext).getValue().toString());
+        Assert.assertEquals(pi, StandardPlugin.preciseImplementationFor(100).instanceForPi().toString());
+        Assert.assertSame(StandardPlugin.preciseImplementationFor(100), StandardPlugin.preciseImplementationFor(100));
+        for (int digits = 101; digits < 301; digits++) {
+            StandardPlugin.preciseImplementationFor(digits);
+        }
+        Assert.assertEquals(pi, StandardPlugin.preciseImplementationFor(100).instanceForPi().toString());
+        Assert.assertEquals(exp, abacus.evaluateTreeWithContext(
+                abacus.parseString("exp(5)"), longContext).getValue().toString());
+        Assert.assertEquals("0." + new String(new char[100]).replace('\0', '3'), abacus.evaluateTreeWithContext(
+                abacus.parseString("1/3"), longContext).getValue().toString());
+        Assert.assertEquals("0." + new String(new char[50]).replace('\0', '3'),
+                abacus.evaluateTree(abacus.parseString("1/3")).getValue().toString());
+    }
+
+    @Test
+    public void testPreciseIntegerParts() {
+        Assert.assertEquals("-3", new PreciseNumber("-2.5").floor().toString());
+        Assert.assertEquals("-2", new PreciseNumber("-2.5").ceiling().toString());
+        Assert.assertEquals("0.5", new PreciseNumber("-2.5").fractionalPart().toString());
+        Assert.assertEquals("5", new PreciseNumber("5.000").ceiling().toString());
+        Assert.assertEquals("3", new PreciseNumber("2.001").ceiling().toString());
+        Assert.assertTrue(new PreciseNumber("5.000").isInteger());
+        Assert.assertTrue(new PreciseNumber("1E+100000").isInteger());
+        Assert.assertFalse(new PreciseNumber("1.5E-100000").isInteger());
+        Assert.assertEquals(0, new PreciseNumber("1E+100000").fractionalPart().signum());
+        Assert.assertTrue(new NaiveNumber(4).isInteger());
+        Assert.assertFalse(new NaiveNumber(4.5).isInteger());
+        Assert.assertFalse(new NaiveNumber(Double.POSITIVE_INFINITY).isInteger());
+        testOutput("3.0!", "(3.0)!", "6");
+        testOutput("2^3.0", "(2^3.0)", "8");
+    }
+
+    @Test
+    public void testRationalNumbers() {
+        MutableEvaluationContext context = new MutableEvaluationContext(abacus.getContext(),
+                StandardPlugin.IMPLEMENTATION_RATIONAL, abacus);
+        String[][] cases = {
+                {"0.1+0.2", "0.3"},
+                {"1/3", "1/3"},
+                {"1/3+1/6", "0.5"},
+                {"1/3*3", "1"},
+                {"-7/2", "-3.5"},
+                {"(2^40)*(2^40)/2^79", "2"},
+                {"(3037000499*3037000499+1)/3037000499", "9223372030926249002/3037000499"}
+        };
+        for (String[] testCase : cases) {
+            Assert.assertEquals(testCase[1], abacus.evaluateTreeWithContext(
+                    abacus.parseString(testCase[0]), context).getValue().toString());
+        }
+        StringBuilder harmonic = new StringBuilder("1");
+        for (int i = 2; i <= 60; i++) harmonic.append("+1/").append(i);
+        Assert.assertEquals("15117092380124150817026911/3230237388259077233637600", abacus.evaluateTreeWithContext(
+                abacus.parseString(harmonic.toString()), context).getValue().toString());
+
+        PromotionResult result = abacus.getPromotionManager().promote(new RationalNumber(1, 3), new PreciseNumber("1"));
+        Assert.assertEquals(StandardPlugin.IMPLEMENTATION_PRECISE, result.getPromotedTo());
+        Assert.assertTrue(result.getItems()[0].toString().startsWith("0.333333333333333333333333333333"));
+
+        try {
+            new RationalNumber(0, 1).intPow(-1);
+            Assert.fail("Reciprocal of zero did not throw ArithmeticException.");
+        } catch (ArithmeticException e){ }
+        try {
+            new RationalNumber(1, 2).divide(new RationalNumber(0, 5));
+            Assert.fail("Division by zero did not throw ArithmeticException.");
+        } catch (ArithmeticException e){ }
+    }
+
 }
@@ -2,9 +2,16 @@ package org.nwapw.abacus.tests;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.nwapw.abacus.exception.TokenizeException;
 import org.nwapw.abacus.lexing.Lexer;
+import org.nwapw.abacus.lexing.LexerSnapshot;
 import org.nwapw.abacus.lexing.Match;
+import org.nwapw.abacus.lexing.TokenBuffer;
 
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 public class LexerTests {
@@ -130,4 +137,171 @@ public class LexerTests {
         Assert.assertEquals(tokens.size(), 1);
     }
 
+    private static void registerMixedPatterns(Lexer<Integer> lexer) {
+        lexer.register("[a-z]+", 0);
+        lexer.register("abc", 1);
+        lexer.register("[0-9]*(\\.[0-9]+)?", 2);
+        lexer.register(" ", 3);
+    }
+
+    @Test
+    public void testCompiledMatchesInterpreted() {
+        String testString = "abc12.5 abcd.25def";
+        Lexer<Integer> interpreted = new Lexer<>();
+        Lexer<Integer> compiled = new Lexer<>();
+        compiled.setCompiledMode(true);
+        registerMixedPatterns(interpreted);
+        registerMixedPatterns(compiled);
+        List<Match<Integer>> expected = interpreted.lexAll(testString, 0, Integer::compare);
+        List<Match<Integer>> tokens = compiled.lexAll(testString, 0, Integer::compare);
+        Assert.assertNotNull(expected);
+        Assert.assertNotNull(tokens);
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getContent(), tokens.get(i).getContent());
+            Assert.assertEquals(expected.get(i).getType(), tokens.get(i).getType());
+        }
+    }
+
+    @Test
+    public void testCompiledRecompilesOnChange() {
+        Lexer<Integer> lexer = new Lexer<>();
+        lexer.setCompiledMode(true);
+        lexer.register("abc", 0);
+        Assert.assertNull(lexer.lexAll("abcdef", 0, Integer::compare));
+        lexer.register("def", 1);
+        List<Match<Integer>> tokens = lexer.lexAll("abcdef", 0, Integer::compare);
+        Assert.assertNotNull(tokens);
+        Assert.assertEquals(2, tokens.size());
+        lexer.unregister("def", 1);
+        Assert.assertNull(lexer.lexAll("abcdef", 0, Integer::compare));
+    }
+
+    @Test
+    public void testKeywordLongestMatch() {
+        Lexer<Integer> lexer = new Lexer<>();
+        lexer.setCompiledMode(true);
+        lexer.register("[a-z]+", 0);
+        lexer.registerKeyword("sin", 1);
+        lexer.registerKeyword("+", 2);
+        lexer.registerKeyword("++", 3);
+        List<Match<Integer>> tokens = lexer.lexAll("sin+++sinh", 0, Integer::compare);
+        Assert.assertNotNull(tokens);
+        Assert.assertEquals(4, tokens.size());
+        Assert.assertEquals(Integer.valueOf(1), tokens.get(0).getType());
+        Assert.assertEquals(Integer.valueOf(3), tokens.get(1).getType());
+        Assert.assertEquals(Integer.valueOf(2), tokens.get(2).getType());
+        Assert.assertEquals(Integer.valueOf(0), tokens.get(3).getType());
+        Assert.assertEquals("sinh", tokens.get(3).getContent());
+        lexer.unregisterKeyword("++", 3);
+        tokens = lexer.lexAll("++", 0, Integer::compare);
+        Assert.assertNotNull(tokens);
+        Assert.assertEquals(2, tokens.size());
+    }
+
+    @Test
+    public void testBufferOffsetsAndDiscard() {
+        Lexer<Integer> lexer = new Lexer<>();
+        lexer.setCompiledMode(true);
+        registerMixedPatterns(lexer);
+        lexer.registerKeyword("sin", 4);
+        String testString = "abc 12.5 sin";
+        TokenBuffer<Integer> tokens = lexer.lexAll(testString, 0, Integer::compare, Collections.singleton(3));
+        Assert.assertNotNull(tokens);
+        Assert.assertEquals(3, tokens.size());
+        Assert.assertSame(testString, tokens.getSource());
+        Assert.assertEquals(4, tokens.getStart(1));
+        Assert.assertEquals(8, tokens.getEnd(1));
+        Assert.assertEquals("12.5", tokens.get(1).getContent());
+        Assert.assertEquals(Integer.valueOf(4), tokens.getType(2));
+        Assert.assertEquals("sin", tokens.get(2).getContent());
+    }
+
+    @Test
+    public void testStreamMatchesString() {
+        Lexer<Integer> lexer = new Lexer<>();
+        registerMixedPatterns(lexer);
+        lexer.registerKeyword("sin", 4);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) builder.append("abc12.5 sin").append(i).append(' ');
+        String testString = builder.toString();
+        TokenBuffer<Integer> expected = lexer.lexAll(testString, 0, Integer::compare, Collections.singleton(3));
+        Iterator<Match<Integer>> stream = lexer.lexStream(new StringReader(testString),
+                Integer::compare, Collections.singleton(3));
+        Assert.assertNotNull(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertTrue(stream.hasNext());
+            Match<Integer> match = stream.next();
+            Assert.assertEquals(expected.getContent(i), match.getContent());
+            Assert.assertEquals(expected.getType(i), match.getType());
+            Assert.assertEquals(expected.getStart(i), match.getStart());
+        }
+        Assert.assertFalse(stream.hasNext());
+    }
+
+    @Test(expected = TokenizeException.class)
+    public void testStreamFailure() {
+        Lexer<Integer> lexer = new Lexer<>();
+        registerMixedPatterns(lexer);
+        lexer.lexStream(CharBuffer.wrap("abc ?"), Integer::compare, Collections.emptySet())
+                .forEachRemaining(match -> {});
+    }
+
+    @Test
+    public void testCharacterClasses() {
+        Lexer<Integer> lexer = new Lexer<>();
+        lexer.register("[a-cx\\-\u00e9-\u00ea]+", 0);
+        lexer.register("[d]", 1);
+        List<Match<Integer>> tokens = lexer.lexAll("ab-x\u00e9\u00eadcc", 0, Integer::compare);
+        Assert.assertNotNull(tokens);
+        Assert.assertEquals(3, tokens.size());
+        Assert.assertEquals("ab-x\u00e9\u00ea", tokens.get(0).getContent());
+        Assert.assertEquals(Integer.valueOf(1), tokens.get(1).getType());
+        Assert.assertNull(lexer.lexAll("abe", 0, Integer::compare));
+        lexer.setCompiledMode(true);
+        Assert.assertEquals(3, lexer.lexAll("ab-x\u00e9\u00eadcc", 0, Integer::compare).size());
+        Assert.assertNull(lexer.lexAll("ab\u00eb", 0, Integer::compare));
+    }
+
+    @Test
+    public void testKeywordBatchUpdate() {
+        Lexer<Integer> lexer = new Lexer<>();
+        lexer.setCompiledMode(true);
+        lexer.register("[a-z]+", 0);
+        LexerSnapshot<Integer> snapshot = lexer.getSnapshot(Integer::compare);
+        lexer.updateKeywords(keywords -> {
+            keywords.register("+", 1);
+            keywords.register("-", 2);
+        });
+        Assert.assertNull(snapshot.lexAll("a+b-c", 0, Collections.emptySet()));
+        List<Match<Integer>> tokens = lexer.lexAll("a+b-c", 0, snapshot.getComparator());
+        Assert.assertNotNull(tokens);
+        Assert.assertEquals(5, tokens.size());
+        LexerSnapshot<Integer> updated = lexer.getSnapshot(snapshot.getComparator());
+        lexer.unregisterKeyword("-", 2);
+        Assert.assertNotNull(updated.lexAll("a+b-c", 0, Collections.emptySet()));
+        lexer.registerKeyword("-", 2);
+        lexer.updateKeywords(keywords -> {
+            keywords.unregister("+", 1);
+            keywords.unregister("-", 2);
+        });
+        Assert.assertNull(lexer.lexAll("a+b", 0, snapshot.getComparator()));
+        Assert.assertNull(lexer.lexAll("a-b", 0, snapshot.getComparator()));
+    }
+
+    @Test
+    public void testSnapshotUnaffectedByChanges() {
+        Lexer<Integer> lexer = new Lexer<>();
+        lexer.setCompiledMode(true);
+        lexer.register("[a-z]+", 0);
+        LexerSnapshot<Integer> snapshot = lexer.getSnapshot(Integer::compare);
+        Assert.assertSame(snapshot, lexer.getSnapshot(snapshot.getComparator()));
+        lexer.registerKeyword("+", 1);
+        lexer.unregister("[a-z]+", 0);
+        Assert.assertNull(snapshot.lexAll("a+b", 0, Collections.emptySet()));
+        Assert.assertNotNull(snapshot.lexAll("ab", 0, Collections.emptySet()));
+        Assert.assertNull(lexer.lexAll("ab", 0, snapshot.getComparator()));
+        Assert.assertNotNull(lexer.lexAll("++", 0, snapshot.getComparator()));
+    }
+
 }
@@ -0,0 +1,64 @@
+package org.nwapw.abacus.tests;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nwapw.abacus.context.PersistentMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PersistentMapTests {
+
+    private static PersistentMap<String, Integer> numberedMap(int size) {
+        PersistentMap<String, Integer> map = new PersistentMap<>();
+        for (int i = 0; i < size; i++) map = map.put("v" + i, i);
+        return map;
+    }
+
+    @Test
+    public void testPutAndGet() {
+        PersistentMap<String, Integer> map = numberedMap(10000);
+        Assert.assertEquals(10000, map.getSize());
+        for (int i = 0; i < 10000; i++) Assert.assertEquals(Integer.valueOf(i), map.get("v" + i));
+        Assert.assertNull(map.get("v10000"));
+        Assert.assertEquals(10000, map.put("v5", 50).getSize());
+        Assert.assertEquals(Integer.valueOf(50), map.put("v5", 50).get("v5"));
+    }
+
+    @Test
+    public void testOldVersionsUnchanged() {
+        PersistentMap<String, Integer> map = numberedMap(10000);
+        PersistentMap<String, Integer> changed = map.put("Aa", 1).put("BB", 2).remove("v5");
+        Assert.assertEquals(10000, map.getSize());
+        Assert.assertEquals(10001, changed.getSize());
+        Assert.assertEquals(Integer.valueOf(5), map.get("v5"));
+        Assert.assertNull(map.get("Aa"));
+        Assert.assertNull(changed.get("v5"));
+        Assert.assertEquals(Integer.valueOf(9999), changed.get("v9999"));
+    }
+
+    @Test
+    public void testHashCollisions() {
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        PersistentMap<String, Integer> map = new PersistentMap<String, Integer>().put("Aa", 1).put("BB", 2);
+        Assert.assertEquals(Integer.valueOf(1), map.get("Aa"));
+        Assert.assertEquals(Integer.valueOf(2), map.get("BB"));
+        Assert.assertEquals(Integer.valueOf(2), map.remove("Aa").get("BB"));
+        Assert.assertNull(map.remove("Aa").get("Aa"));
+        Assert.assertEquals(1, map.remove("BB").getSize());
+    }
+
+    @Test
+    public void testForEach() {
+        PersistentMap<String, Integer> map = numberedMap(1000).remove("v10");
+        Map<String, Integer> visited = new HashMap<>();
+        map.forEach((key, value) -> {
+            visited.put(key, value);
+            return null;
+        });
+        Assert.assertEquals(999, visited.size());
+        Assert.assertFalse(visited.containsKey("v10"));
+        Assert.assertEquals(Integer.valueOf(999), visited.get("v999"));
+    }
+
+}
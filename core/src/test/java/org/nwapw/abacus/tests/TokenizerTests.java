@@ -14,9 +14,12 @@ import org.nwapw.abacus.function.interfaces.NumberFunction;
 import org.nwapw.abacus.function.interfaces.NumberOperator;
 import org.nwapw.abacus.lexing.Match;
 import org.nwapw.abacus.number.NumberInterface;
+import org.nwapw.abacus.parsing.TreeBuilder;
 import org.nwapw.abacus.parsing.standard.LexerTokenizer;
+import org.nwapw.abacus.parsing.standard.ShuntingYardParser;
 import org.nwapw.abacus.parsing.standard.TokenType;
 import org.nwapw.abacus.plugin.Plugin;
+import org.nwapw.abacus.tree.nodes.TreeNode;
 
 import java.util.List;
 
@@ -107,7 +110,6 @@ public class TokenizerTests {
     public void testSimpleChars() {
         TokenType[] types = {
                 TokenType.OPEN_PARENTH,
-                TokenType.WHITESPACE,
                 TokenType.COMMA,
                 TokenType.CLOSE_PARENTH
         };
@@ -147,4 +149,46 @@ public class TokenizerTests {
         assertTokensMatch(lexerTokenizer.tokenizeString("1+1"), types);
     }
 
+    private static void assertEditMatches(String before, int offset, int removed, String inserted) {
+        String after = before.substring(0, offset) + inserted + before.substring(offset + removed);
+        List<Match<TokenType>> expected = lexerTokenizer.tokenizeString(after);
+        List<Match<TokenType>> tokens = lexerTokenizer.tokenizeEdit(lexerTokenizer.tokenizeString(before),
+                offset, removed, inserted);
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getType(), tokens.get(i).getType());
+            Assert.assertEquals(expected.get(i).getContent(), tokens.get(i).getContent());
+            Assert.assertEquals(expected.get(i).getStart(), tokens.get(i).getStart());
+        }
+    }
+
+    @Test
+    public void testIncrementalEdits() {
+        assertEditMatches("1+2+3+4", 2, 1, "25");
+        assertEditMatches("1+2+3+4", 7, 0, ".5");
+        assertEditMatches("subtract(1, 2)+3", 0, 8, "x");
+        assertEditMatches("subtract(1, 2)+3", 3, 0, " ");
+        assertEditMatches("12 34", 2, 1, "");
+        assertEditMatches("1.5+2", 1, 0, "2");
+        assertEditMatches(" 1+2", 0, 1, "");
+    }
+
+    @Test
+    public void testParseCache() {
+        ShuntingYardParser parser = new ShuntingYardParser();
+        parser.onLoad(abacus.getPluginManager());
+        TreeBuilder<Match<TokenType>> builder = new TreeBuilder<>(lexerTokenizer, parser, 2);
+        TreeNode first = builder.fromString("1+2");
+        Assert.assertSame(first, builder.fromString("1+2"));
+        Assert.assertEquals(1, builder.getHits());
+        Assert.assertEquals(1, builder.getMisses());
+        builder.fromString("1-2");
+        builder.fromString("subtract(1, 2)");
+        Assert.assertEquals(1, builder.getEvictions());
+        Assert.assertEquals(2, builder.getCacheSize());
+        builder.onUnload(abacus.getPluginManager());
+        Assert.assertEquals(0, builder.getCacheSize());
+        Assert.assertNotSame(first, builder.fromString("1+2"));
+    }
+
 }